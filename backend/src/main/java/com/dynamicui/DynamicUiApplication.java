@@ -2,9 +2,17 @@ package com.dynamicui;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
-@SpringBootApplication
+// The reactive driver is only set up when app.reactive.enabled=true (see ReactiveMongoConfig)
+@SpringBootApplication(exclude = {
+    MongoReactiveAutoConfiguration.class,
+    MongoReactiveDataAutoConfiguration.class,
+    MongoReactiveRepositoriesAutoConfiguration.class
+})
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
 public class DynamicUiApplication {
     public static void main(String[] args) {
@@ -1,15 +1,32 @@
 package com.dynamicui.backend.controller;
 
+import com.dynamicui.backend.model.ComponentEdit;
 import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.service.PageBundleService;
+import com.dynamicui.backend.service.PageConflictException;
 import com.dynamicui.backend.service.PageService;
+import com.dynamicui.backend.service.PageSnapshotService;
+import com.dynamicui.controller.PagedResponse;
+import com.dynamicui.controller.ResourceVersion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/pages")
@@ -19,10 +36,31 @@ public class PageController {
     @Autowired
     private PageService pageService;
     
+    @Autowired
+    private PageBundleService pageBundleService;
+    
+    @Autowired
+    private PageSnapshotService pageSnapshotService;
+    
     @GetMapping
-    public ResponseEntity<List<Page>> getAllPages(
+    public ResponseEntity<?> getAllPages(
             @RequestParam(required = false) Boolean published,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean summary,
+            @PageableDefault(size = 50, sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest request) {
+        
+        ResourceVersion version = ResourceVersion.ofList(
+            pageService.countPages(), pageService.getLatestUpdate(), published, search,
+            summary ? pageable : null);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+        
+        if (summary) {
+            // Id, name, description, flags and timestamps only; components are never loaded
+            return version.ok(PagedResponse.of(pageService.getPageSummaries(published, search, pageable)));
+        }
         
         List<Page> pages;
         
@@ -34,25 +72,59 @@ public class PageController {
             pages = pageService.getAllPages();
         }
         
-        return ResponseEntity.ok(pages);
+        return version.ok(pages);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Page> getPageById(
+    public ResponseEntity<?> getPageById(
             @PathVariable String id,
-            @RequestParam(required = false) Boolean published) {
+            @RequestParam(required = false) Boolean published,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
         
         if (published != null && published) {
-            return pageService.getPublishedPageById(id)
-                .map(page -> ResponseEntity.ok(page))
+            // Published pages are served from their pre-serialized snapshot
+            return pageSnapshotService.getPublished(id)
+                .map(snapshot -> {
+                    if (request.checkNotModified(snapshot.etag())) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+                    }
+                    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(snapshot.etag())
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    if (gzip) {
+                        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                    return response.body(gzip ? snapshot.gzip() : snapshot.json());
+                })
                 .orElse(ResponseEntity.notFound().build());
         } else {
             return pageService.getPageById(id)
-                .map(page -> ResponseEntity.ok(page))
+                .map(page -> {
+                    ResourceVersion version = ResourceVersion.of(page.getId(), page.getUpdatedAt());
+                    return version.notModified(request) ? version.<Page>notModifiedResponse() : version.ok(page);
+                })
                 .orElse(ResponseEntity.notFound().build());
         }
     }
     
+    @GetMapping("/{id}/bundle")
+    public ResponseEntity<Map<String, Object>> getPageBundle(
+            @PathVariable String id,
+            @RequestParam(required = false) Boolean published,
+            @RequestParam(required = false) Long timeoutMs) {
+        
+        Optional<Page> page = published != null && published
+            ? pageService.getPublishedPageById(id)
+            : pageService.getPageById(id);
+        return page
+            .map(p -> ResponseEntity.ok(pageBundleService.getBundle(p, timeoutMs)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
     @PostMapping
     public ResponseEntity<Page> createPage(@Valid @RequestBody Page page) {
         try {
@@ -64,13 +136,90 @@ public class PageController {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<Page> updatePage(
+    public ResponseEntity<?> updatePage(
             @PathVariable String id,
             @Valid @RequestBody Page updatedPage) {
         
-        return pageService.updatePage(id, updatedPage)
-            .map(page -> ResponseEntity.ok(page))
-            .orElse(ResponseEntity.notFound().build());
+        try {
+            return pageService.updatePage(id, updatedPage)
+                .map(page -> ResponseEntity.ok(page))
+                .orElse(ResponseEntity.notFound().build());
+        } catch (PageConflictException e) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", e.getMessage());
+            body.put("version", e.getCurrentVersion());
+            body.put("changedComponents", e.getChangedComponentIds());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PatchMapping("/{id}/components")
+    public ResponseEntity<Map<String, Object>> mergeComponents(
+            @PathVariable String id,
+            @RequestBody List<ComponentEdit> edits) {
+        
+        try {
+            return pageService.mergeComponents(id, edits)
+                .map(result -> ((List<?>) result.get("conflicts")).isEmpty() && ((List<?>) result.get("missing")).isEmpty()
+                    ? ResponseEntity.ok(result)
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body(result))
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PatchMapping("/{id}/components/{componentId}")
+    public ResponseEntity<Map<String, Object>> updateComponent(
+            @PathVariable String id,
+            @PathVariable String componentId,
+            @RequestParam(required = false) Long version,
+            @RequestParam(required = false) Long componentVersion,
+            @RequestBody Map<String, Object> changes) {
+        
+        return componentChange(
+            () -> pageService.updateComponent(id, componentId, changes, version, componentVersion), HttpStatus.OK);
+    }
+    
+    @PostMapping("/{id}/components")
+    public ResponseEntity<Map<String, Object>> addComponent(
+            @PathVariable String id,
+            @RequestParam(required = false) Long version,
+            @RequestBody Page.UIComponent component) {
+        
+        return componentChange(() -> pageService.addComponent(id, component, version), HttpStatus.CREATED);
+    }
+    
+    @DeleteMapping("/{id}/components/{componentId}")
+    public ResponseEntity<Map<String, Object>> removeComponent(
+            @PathVariable String id,
+            @PathVariable String componentId,
+            @RequestParam(required = false) Long version) {
+        
+        return componentChange(() -> pageService.removeComponent(id, componentId, version), HttpStatus.OK);
+    }
+    
+    // Component edits answer with the page's new version and only the affected component
+    private ResponseEntity<Map<String, Object>> componentChange(Supplier<Optional<Page>> change, HttpStatus status) {
+        try {
+            return change.get()
+                .map(page -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("version", page.getVersion());
+                    body.put("updatedAt", page.getUpdatedAt());
+                    if (page.getComponents() != null && !page.getComponents().isEmpty()) {
+                        body.put("component", page.getComponents().get(0));
+                    }
+                    return ResponseEntity.status(status).body(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PatchMapping("/{id}/publish")
@@ -115,8 +264,13 @@ public class PageController {
     }
     
     @GetMapping("/by-component/{componentType}")
-    public ResponseEntity<List<Page>> getPagesByComponentType(@PathVariable String componentType) {
+    public ResponseEntity<List<Page>> getPagesByComponentType(@PathVariable String componentType, WebRequest request) {
+        ResourceVersion version = ResourceVersion.ofList(
+            pageService.countPages(), pageService.getLatestUpdate(), "by-component", componentType);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
         List<Page> pages = pageService.getPagesByComponentType(componentType);
-        return ResponseEntity.ok(pages);
+        return version.ok(pages);
     }
 }
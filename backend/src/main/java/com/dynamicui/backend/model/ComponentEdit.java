@@ -0,0 +1,46 @@
+package com.dynamicui.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.Map;
+
+/**
+ * One entry of a merged component update: the changed fields of a component and the
+ * component version the change was made against.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ComponentEdit {
+    @NotBlank
+    private String id;
+    
+    private Long version;
+    private Map<String, Object> changes;
+    
+    public ComponentEdit() {}
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+    
+    public void setChanges(Map<String, Object> changes) {
+        this.changes = changes;
+    }
+}
@@ -1,17 +1,33 @@
 package com.dynamicui.backend.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Indexes back the repository's lookups and listings; they are created at startup with
+ * spring.data.mongodb.auto-index-creation. The name index also serves the case-insensitive
+ * searches, which cannot seek on it but scan its keys instead of whole page documents.
+ */
 @Document(collection = "pages")
+@CompoundIndexes({
+    // findByIsPublished and the published summary listing, newest first
+    @CompoundIndex(name = "published_updated", def = "{'is_published': 1, 'updated_at': -1}"),
+    // findByComponentType (multikey over the embedded components)
+    @CompoundIndex(name = "component_type", def = "{'components.type': 1}")
+})
 public class Page {
     @Id
     private String id;
 
+    @Indexed
     @Field("name")
     private String name;
 
@@ -30,9 +46,14 @@ public class Page {
     @Field("created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Indexed
     @Field("updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    @Version
+    @Field("version")
+    private Long version;
+
     // Constructors
     public Page() {}
 
@@ -66,6 +87,9 @@ public class Page {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
     }
@@ -81,6 +105,8 @@ public class Page {
         private Integer height;
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
+        // Bumped on every change to the component, so edits to different components can be merged
+        private Long version;
 
         // Constructors
         public UIComponent() {}
@@ -115,6 +141,9 @@ public class Page {
 
         public LocalDateTime getUpdatedAt() { return updatedAt; }
         public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
     }
 
     public static class LayoutOptions {
@@ -0,0 +1,17 @@
+package com.dynamicui.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of {@link Page} for listings. Spring Data derives the field projection
+ * from these getters, so the components and layout are never read from MongoDB.
+ */
+public interface PageSummary {
+    String getId();
+    String getName();
+    String getDescription();
+    Boolean getIsPublished();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    Long getVersion();
+}
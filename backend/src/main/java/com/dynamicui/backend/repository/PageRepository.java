@@ -1,6 +1,8 @@
 package com.dynamicui.backend.repository;
 
 import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.model.PageSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -20,10 +22,25 @@ public interface PageRepository extends MongoRepository<Page, String> {
     
     Optional<Page> findByIdAndIsPublished(String id, Boolean isPublished);
     
+    // Only the version, for revalidating a cached published page
+    @Query(value = "{ '_id' : ?0, 'is_published' : true }", fields = "{ 'version' : 1 }")
+    Optional<Page> findPublishedVersionById(String id);
+    
     List<Page> findByOrderByUpdatedAtDesc();
     
     List<Page> findByOrderByCreatedAtDesc();
     
+    // Only updated_at: the list ETag needs the newest timestamp, not the components and layout
+    @Query(fields = "{ 'updated_at' : 1 }")
+    Optional<Page> findTopByOrderByUpdatedAtDesc();
+    
+    // Summary listings; Spring's Page is qualified to avoid the clash with the model class
+    org.springframework.data.domain.Page<PageSummary> findSummariesBy(Pageable pageable);
+    
+    org.springframework.data.domain.Page<PageSummary> findSummariesByIsPublished(Boolean isPublished, Pageable pageable);
+    
+    org.springframework.data.domain.Page<PageSummary> findSummariesByNameContainingIgnoreCase(String name, Pageable pageable);
+    
     @Query("{ 'components.type' : ?0 }")
     List<Page> findByComponentType(String componentType);
 }
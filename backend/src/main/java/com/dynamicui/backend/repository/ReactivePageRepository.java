@@ -0,0 +1,17 @@
+package com.dynamicui.backend.repository;
+
+import com.dynamicui.backend.model.Page;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactivePageRepository extends ReactiveMongoRepository<Page, String> {
+    
+    Flux<Page> findByIsPublished(Boolean isPublished);
+    
+    Mono<Page> findByIdAndIsPublished(String id, Boolean isPublished);
+    
+    Flux<Page> findByOrderByUpdatedAtDesc();
+}
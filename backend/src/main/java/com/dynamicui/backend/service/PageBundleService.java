@@ -0,0 +1,252 @@
+package com.dynamicui.backend.service;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.service.DataGenerationService;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.KeysetPagination;
+import com.dynamicui.service.MongoQueryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resolves a page together with the data of every component in one call. A component's
+ * data source comes from its properties: {@code mongoQuery} (a query as JSON) or
+ * {@code collection} runs through {@link MongoQueryService}, and {@code datasetId} alone
+ * generates rows for that dataset. Sources are fetched concurrently on the shared query
+ * executor, at most {@code page.bundle.max-concurrent-sources} at a time across all bundles.
+ * Each component has its own timeout (its {@code timeoutMs} property, else the bundle's),
+ * counted from the start of the bundle and covering any wait for a free slot, so all the
+ * timeouts run concurrently; a component that fails or times out is reported on its own
+ * while the rest of the bundle is still returned.
+ */
+@Service
+public class PageBundleService {
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    @Autowired
+    private DataGenerationService dataGenerationService;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("mongoQueryExecutor")
+    private ExecutorService mongoQueryExecutor;
+
+    @Value("${page.bundle.default-timeout-ms:3000}")
+    private long defaultTimeoutMs;
+
+    @Value("${page.bundle.max-timeout-ms:30000}")
+    private long maxTimeoutMs;
+
+    @Value("${page.bundle.default-rows:50}")
+    private int defaultRows;
+
+    @Value("${page.bundle.max-rows:1000}")
+    private int maxRows;
+
+    private final Semaphore sourceSlots;
+
+    public PageBundleService(
+            @Value("${page.bundle.max-concurrent-sources:${mongo.query.executor.threads:32}}") int maxConcurrentSources) {
+        this.sourceSlots = new Semaphore(maxConcurrentSources);
+    }
+
+    public Map<String, Object> getBundle(Page page, Long timeoutMs) {
+        long timeout = timeout(timeoutMs);
+        long start = System.nanoTime();
+
+        List<Page.UIComponent> components = page.getComponents() != null ? page.getComponents() : List.of();
+        Map<String, Dataset> datasets = loadDatasets(components);
+
+        Map<String, CompletableFuture<Map<String, Object>>> pending = new LinkedHashMap<>();
+        Map<String, Long> timeouts = new LinkedHashMap<>();
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            Page.UIComponent component = components.get(i);
+            String key = component.getId() != null ? component.getId() : "component-" + i;
+            Map<String, String> properties = component.getProperties() != null ? component.getProperties() : Map.of();
+            try {
+                long componentTimeout = properties.get("timeoutMs") != null
+                    ? timeout(Long.valueOf(properties.get("timeoutMs").trim()))
+                    : timeout;
+                DataSource source = dataSource(properties, datasets, componentTimeout);
+                if (source == null) {
+                    continue;
+                }
+                long deadline = start + TimeUnit.MILLISECONDS.toNanos(componentTimeout);
+                long remaining = Math.max(1, deadline - System.nanoTime());
+                pending.put(key, submit(source, deadline, componentTimeout).orTimeout(remaining, TimeUnit.NANOSECONDS));
+                timeouts.put(key, componentTimeout);
+            } catch (Exception e) {
+                results.put(key, failure("error", e.getMessage(), 0));
+            }
+        }
+
+        // Components whose source could not even be built already make the bundle partial
+        boolean complete = results.isEmpty();
+        for (Map.Entry<String, CompletableFuture<Map<String, Object>>> entry : pending.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                long componentTimeout = timeouts.get(entry.getKey());
+                results.put(entry.getKey(), e.getCause() instanceof TimeoutException expired
+                    ? failure("timeout", expired.getMessage() != null
+                        ? expired.getMessage()
+                        : "Timeout of " + componentTimeout + "ms exceeded", componentTimeout)
+                    : failure("error", e.getCause().getMessage(), elapsedMs(start)));
+                complete = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.values().forEach(f -> f.cancel(true));
+                throw new RuntimeException("Bundle loading was interrupted", e);
+            }
+        }
+
+        Map<String, Object> bundle = new LinkedHashMap<>();
+        bundle.put("page", page);
+        bundle.put("data", results);
+        bundle.put("complete", complete);
+        bundle.put("elapsedMs", elapsedMs(start));
+        return bundle;
+    }
+
+    private long timeout(Long requestedMs) {
+        return requestedMs != null && requestedMs > 0 ? Math.min(requestedMs, maxTimeoutMs) : defaultTimeoutMs;
+    }
+
+    /**
+     * Runs a source on the query executor once it holds one of the slots. The task waits for
+     * the slot itself, until the component's deadline, so components queued behind busy
+     * slots wait side by side rather than one after another. The slot is given back when the
+     * source really finishes, not when its component times out, so the bound reflects the
+     * work actually running.
+     */
+    private CompletableFuture<Map<String, Object>> submit(DataSource source, long deadline, long timeoutMs) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (!sourceSlots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new CompletionException(new TimeoutException("No query slot became free within "
+                        + timeoutMs + "ms"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return timed(source);
+            } finally {
+                sourceSlots.release();
+            }
+        }, mongoQueryExecutor);
+    }
+
+    // Cached datasets plus one findAllById ($in) for the rest, instead of a lookup per component
+    private Map<String, Dataset> loadDatasets(List<Page.UIComponent> components) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Page.UIComponent component : components) {
+            if (component.getProperties() != null && component.getProperties().get("datasetId") != null) {
+                ids.add(component.getProperties().get("datasetId"));
+            }
+        }
+        return ids.isEmpty() ? Map.of() : datasetCache.findAllById(ids);
+    }
+
+    private DataSource dataSource(Map<String, String> properties, Map<String, Dataset> datasets, long timeout)
+            throws Exception {
+        int rows = rows(properties.get("dataLimit"));
+        String datasetId = properties.get("datasetId");
+
+        MongoQuery query = null;
+        if (properties.get("mongoQuery") != null && !properties.get("mongoQuery").isBlank()) {
+            query = objectMapper.readValue(properties.get("mongoQuery"), MongoQuery.class);
+        } else if (properties.get("collection") != null && !properties.get("collection").isBlank()) {
+            query = new MongoQuery(properties.get("collection"), null);
+            query.setLimit(rows);
+        }
+        if (query != null) {
+            if (query.getDatasetId() == null) {
+                query.setDatasetId(datasetId);
+            }
+            query.setMaxTimeMs(timeout);
+            MongoQuery bound = query;
+            if (bound.isKeysetPagination()) {
+                // The page without the look-ahead row, plus the token for the next one
+                return () -> mongoQueryService.executeKeysetPage(bound);
+            }
+            return () -> new KeysetPagination.Page(mongoQueryService.executeQuery(bound), null);
+        }
+
+        if (datasetId != null) {
+            Dataset dataset = datasets.get(datasetId);
+            if (dataset == null) {
+                throw new IllegalArgumentException("Dataset not found: " + datasetId);
+            }
+            Long seed = properties.get("seed") != null ? Long.valueOf(properties.get("seed")) : null;
+            return () -> new KeysetPagination.Page(dataGenerationService.generateDataForDataset(dataset, rows, seed, 0), null);
+        }
+        return null;
+    }
+
+    private int rows(String dataLimit) {
+        if (dataLimit == null) {
+            return defaultRows;
+        }
+        int rows = Integer.parseInt(dataLimit.trim());
+        return rows > 0 ? Math.min(rows, maxRows) : defaultRows;
+    }
+
+    private Map<String, Object> timed(DataSource source) {
+        long start = System.nanoTime();
+        KeysetPagination.Page page = source.load();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "ok");
+        result.put("data", page.data());
+        result.put("count", page.data().size());
+        if (page.continuationToken() != null) {
+            result.put("continuationToken", page.continuationToken());
+        }
+        result.put("elapsedMs", elapsedMs(start));
+        return result;
+    }
+
+    private Map<String, Object> failure(String status, String error, long elapsedMs) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", status);
+        result.put("error", error);
+        result.put("elapsedMs", elapsedMs);
+        return result;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @FunctionalInterface
+    private interface DataSource {
+        KeysetPagination.Page load();
+    }
+}
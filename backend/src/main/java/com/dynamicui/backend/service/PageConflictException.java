@@ -0,0 +1,33 @@
+package com.dynamicui.backend.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page update based on an outdated version. Carries the current version and the
+ * components changed since the caller's copy, so the caller can re-apply its edits to
+ * just those components and retry.
+ */
+public class PageConflictException extends OptimisticLockingFailureException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long currentVersion;
+    private final ArrayList<String> changedComponentIds;
+    
+    public PageConflictException(String message, Long currentVersion, List<String> changedComponentIds) {
+        super(message);
+        this.currentVersion = currentVersion;
+        this.changedComponentIds = new ArrayList<>(changedComponentIds);
+    }
+    
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+    
+    public List<String> getChangedComponentIds() {
+        return changedComponentIds;
+    }
+}
@@ -1,13 +1,31 @@
 package com.dynamicui.backend.service;
 
+import com.dynamicui.backend.model.ComponentEdit;
 import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.model.PageSummary;
 import com.dynamicui.backend.repository.PageRepository;
+import com.dynamicui.service.MongoQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class PageService {
@@ -15,14 +33,51 @@ public class PageService {
     @Autowired
     private PageRepository pageRepository;
     
+    @Autowired
+    private PageSnapshotService pageSnapshotService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MongoQueryService mongoQueryService;
+    
+    // The type each patchable field has on Page.UIComponent, so a patch cannot store a value it can't read back
+    private static final Map<String, Class<?>> PATCHABLE_COMPONENT_FIELDS = Map.of(
+        "type", String.class,
+        "name", String.class,
+        "properties", Map.class,
+        "xPosition", Integer.class,
+        "yPosition", Integer.class,
+        "width", Integer.class,
+        "height", Integer.class);
+    
     public List<Page> getAllPages() {
         return pageRepository.findByOrderByUpdatedAtDesc();
     }
     
+    public org.springframework.data.domain.Page<PageSummary> getPageSummaries(Boolean published, String search,
+                                                                              Pageable pageable) {
+        if (search != null && !search.isEmpty()) {
+            return pageRepository.findSummariesByNameContainingIgnoreCase(search, pageable);
+        } else if (published != null && published) {
+            return pageRepository.findSummariesByIsPublished(true, pageable);
+        }
+        return pageRepository.findSummariesBy(pageable);
+    }
+    
     public List<Page> getPublishedPages() {
         return pageRepository.findByIsPublished(true);
     }
     
+    public long countPages() {
+        return pageRepository.count();
+    }
+    
+    public LocalDateTime getLatestUpdate() {
+        return pageRepository.findTopByOrderByUpdatedAtDesc().map(Page::getUpdatedAt).orElse(null);
+    }
+    
     public Optional<Page> getPageById(String id) {
         return pageRepository.findById(id);
     }
@@ -39,9 +94,12 @@ public class PageService {
         if (page.getId() == null) {
             // New page
             page.setCreatedAt(LocalDateTime.now());
+            page.setVersion(null);
         }
         page.preUpdate(); // Updates updatedAt
-        return pageRepository.save(page);
+        Page saved = pageRepository.save(page);
+        pageSnapshotService.refresh(saved); // Publishing, updating and unpublishing all pass through here
+        return saved;
     }
     
     public Page createPage(String name, String description) {
@@ -52,15 +110,92 @@ public class PageService {
     public Optional<Page> updatePage(String id, Page updatedPage) {
         return pageRepository.findById(id)
             .map(existingPage -> {
+                checkVersion(existingPage, updatedPage);
                 existingPage.setName(updatedPage.getName());
                 existingPage.setDescription(updatedPage.getDescription());
-                existingPage.setComponents(updatedPage.getComponents());
+                existingPage.setComponents(versionComponents(existingPage.getComponents(), updatedPage.getComponents()));
                 existingPage.setLayout(updatedPage.getLayout());
                 existingPage.setIsPublished(updatedPage.getIsPublished());
                 return savePage(existingPage);
             });
     }
     
+    /**
+     * Rejects an update made against an older version of the page, naming the components
+     * changed since the caller's copy so the caller can merge its edits through
+     * {@link #mergeComponents} instead of overwriting them. A component counts as changed
+     * when its stored version differs from the version the caller submitted for it, or the
+     * caller's copy does not have it. Updates without a version keep the previous
+     * last-writer-wins behaviour.
+     */
+    private void checkVersion(Page existingPage, Page updatedPage) {
+        if (updatedPage.getVersion() == null || updatedPage.getVersion().equals(existingPage.getVersion())) {
+            return;
+        }
+        Map<String, Page.UIComponent> submitted = componentsById(updatedPage.getComponents());
+        List<String> changed = new ArrayList<>();
+        if (existingPage.getComponents() != null) {
+            for (Page.UIComponent component : existingPage.getComponents()) {
+                Page.UIComponent copy = submitted.get(component.getId());
+                if (copy == null || copy.getVersion() == null
+                    || componentVersion(component) != copy.getVersion()) {
+                    changed.add(component.getId());
+                }
+            }
+        }
+        throw new PageConflictException("Page " + existingPage.getId() + " is at version " + existingPage.getVersion()
+            + ", not " + updatedPage.getVersion(), existingPage.getVersion(), changed);
+    }
+    
+    private static Map<String, Page.UIComponent> componentsById(List<Page.UIComponent> components) {
+        Map<String, Page.UIComponent> byId = new HashMap<>();
+        if (components != null) {
+            components.stream().filter(c -> c.getId() != null).forEach(c -> byId.put(c.getId(), c));
+        }
+        return byId;
+    }
+    
+    // Components saved before versioning have no version and count as version 0
+    private static long componentVersion(Page.UIComponent component) {
+        return component.getVersion() != null ? component.getVersion() : 0L;
+    }
+    
+    // Carries component versions over a full update, bumping only the components whose content changed
+    private List<Page.UIComponent> versionComponents(List<Page.UIComponent> stored, List<Page.UIComponent> submitted) {
+        if (submitted == null) {
+            return null;
+        }
+        Map<String, Page.UIComponent> storedById = componentsById(stored);
+        LocalDateTime now = LocalDateTime.now();
+        for (Page.UIComponent component : submitted) {
+            Page.UIComponent previous = component.getId() != null ? storedById.get(component.getId()) : null;
+            if (previous == null) {
+                component.setVersion(0L);
+                if (component.getCreatedAt() == null) {
+                    component.setCreatedAt(now);
+                }
+                component.setUpdatedAt(now);
+            } else if (sameContent(previous, component)) {
+                component.setVersion(previous.getVersion());
+                component.setUpdatedAt(previous.getUpdatedAt());
+            } else {
+                component.setVersion(componentVersion(previous) + 1);
+                component.setUpdatedAt(now);
+            }
+        }
+        return submitted;
+    }
+    
+    private static boolean sameContent(Page.UIComponent a, Page.UIComponent b) {
+        return Objects.equals(a.getType(), b.getType())
+            && Objects.equals(a.getName(), b.getName())
+            && Objects.equals(a.getProperties(), b.getProperties())
+            && Objects.equals(a.getXPosition(), b.getXPosition())
+            && Objects.equals(a.getYPosition(), b.getYPosition())
+            && Objects.equals(a.getWidth(), b.getWidth())
+            && Objects.equals(a.getHeight(), b.getHeight());
+    }
+    
     public Optional<Page> publishPage(String id) {
         return pageRepository.findById(id)
             .map(page -> {
@@ -81,6 +216,7 @@ public class PageService {
         return pageRepository.findById(id)
             .map(page -> {
                 pageRepository.delete(page);
+                pageSnapshotService.evict(id);
                 return true;
             })
             .orElse(false);
@@ -103,4 +239,257 @@ public class PageService {
             })
             .orElse(null);
     }
+    
+    /**
+     * Applies a partial update to one component with a single positional {@code $set}, so
+     * the write touches only the changed fields instead of rewriting the page. Keys under
+     * {@code properties} are merged individually; a null value removes the key. When
+     * {@code expectedVersion} is given the update only applies to that page version, and when
+     * {@code expectedComponentVersion} is given only to that version of the component, which
+     * lets edits to other components of the same page proceed concurrently.
+     *
+     * @return the page's new version and the updated component, or empty if the page or
+     *         component does not exist
+     * @throws OptimisticLockingFailureException if the page or component has moved past the
+     *         expected version
+     * @throws IllegalArgumentException if a field cannot be patched or its value does not
+     *         have the component field's type
+     */
+    public Optional<Page> updateComponent(String pageId, String componentId, Map<String, Object> changes,
+                                          Long expectedVersion, Long expectedComponentVersion) {
+        return applyComponentUpdate(pageId, componentId, componentUpdate(changes), expectedVersion, expectedComponentVersion);
+    }
+    
+    /**
+     * Applies edits made against possibly different versions of the page, all or nothing.
+     * Each edit is conditional on its own component's version only, so edits to components
+     * nobody else touched go through even when the page itself has moved on. All edits are
+     * written in one update of the page document; if any component has moved past the
+     * edit's version or no longer exists, nothing is written and the conflicting and missing
+     * ids are reported back for the caller to reconcile and retry.
+     *
+     * @return the applied components (none when the edits were rejected), the ids of
+     *         conflicting and missing components and the page's latest version, or empty if
+     *         the page does not exist
+     */
+    public Optional<Map<String, Object>> mergeComponents(String pageId, List<ComponentEdit> edits) {
+        Set<String> ids = new HashSet<>();
+        for (ComponentEdit edit : edits) {
+            if (edit.getId() == null || !ids.add(edit.getId())) {
+                throw new IllegalArgumentException("Each component can only be edited once per request: " + edit.getId());
+            }
+        }
+        if (edits.isEmpty()) {
+            return pageRepository.findById(pageId)
+                .map(page -> mergeResult(page.getVersion(), List.of(), List.of(), List.of()));
+        }
+        
+        // Build the whole update first so an invalid edit rejects the request before anything is written
+        LocalDateTime now = LocalDateTime.now();
+        String idField = componentIdField();
+        Update update = new Update();
+        List<Criteria> expected = new ArrayList<>();
+        for (int i = 0; i < edits.size(); i++) {
+            ComponentEdit edit = edits.get(i);
+            // Array filters are passed to the server as written, so they use the stored field names
+            String element = "c" + i;
+            String prefix = "components.$[" + element + "].";
+            componentUpdate(update, prefix, edit.getChanges() != null ? edit.getChanges() : Map.of());
+            update.set(prefix + "updatedAt", now).inc(prefix + "version", 1);
+            update.filterArray(componentCriteria(element + "." + idField, element + ".version", edit));
+            expected.add(Criteria.where("components").elemMatch(componentCriteria("id", "version", edit)));
+        }
+        Query query = Query.query(Criteria.where("id").is(pageId)).addCriteria(new Criteria().andOperator(expected));
+        query.fields().include("version", "updatedAt", "components");
+        
+        Page result = mongoTemplate.findAndModify(query, touch(update, now),
+            FindAndModifyOptions.options().returnNew(true), Page.class);
+        if (result == null) {
+            return pageRepository.findById(pageId).map(page -> rejectedMerge(page, edits));
+        }
+        afterTemplateWrite(pageId);
+        Map<String, Page.UIComponent> updated = componentsById(result.getComponents());
+        List<Page.UIComponent> applied = edits.stream().map(edit -> updated.get(edit.getId())).toList();
+        return Optional.of(mergeResult(result.getVersion(), applied, List.of(), List.of()));
+    }
+    
+    // Works out which edits stopped the merge; the page is read after the failed update, and
+    // since component versions only grow, a component that blocked it still shows as changed
+    private Map<String, Object> rejectedMerge(Page page, List<ComponentEdit> edits) {
+        Map<String, Page.UIComponent> stored = componentsById(page.getComponents());
+        List<String> conflicts = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (ComponentEdit edit : edits) {
+            Page.UIComponent component = stored.get(edit.getId());
+            if (component == null) {
+                missing.add(edit.getId());
+            } else if (edit.getVersion() == null || componentVersion(component) != edit.getVersion()) {
+                conflicts.add(edit.getId());
+            }
+        }
+        if (conflicts.isEmpty() && missing.isEmpty()) {
+            // A component was removed and re-added in between; let the caller retry
+            edits.forEach(edit -> conflicts.add(edit.getId()));
+        }
+        return mergeResult(page.getVersion(), List.of(), conflicts, missing);
+    }
+    
+    private static Map<String, Object> mergeResult(Long version, List<Page.UIComponent> applied,
+                                                   List<String> conflicts, List<String> missing) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("version", version);
+        result.put("applied", applied);
+        result.put("conflicts", conflicts);
+        result.put("missing", missing);
+        return result;
+    }
+    
+    private static Criteria componentCriteria(String idField, String versionField, ComponentEdit edit) {
+        Criteria criteria = Criteria.where(idField).is(edit.getId());
+        if (edit.getVersion() == null) {
+            return criteria;
+        }
+        return edit.getVersion() == 0
+            ? criteria.and(versionField).in(0L, null)
+            : criteria.and(versionField).is(edit.getVersion());
+    }
+    
+    private String componentIdField() {
+        return mongoTemplate.getConverter().getMappingContext()
+            .getRequiredPersistentEntity(Page.UIComponent.class)
+            .getRequiredPersistentProperty("id")
+            .getFieldName();
+    }
+    
+    private Update componentUpdate(Map<String, Object> changes) {
+        return componentUpdate(new Update(), "components.$.", changes);
+    }
+    
+    private Update componentUpdate(Update update, String prefix, Map<String, Object> changes) {
+        changes.forEach((field, value) -> {
+            Class<?> type = PATCHABLE_COMPONENT_FIELDS.get(field);
+            if (type == null) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field);
+            }
+            if (value != null && !type.isInstance(value)) {
+                throw new IllegalArgumentException("Field " + field + " must be " + typeName(type) + ": " + value);
+            }
+            if (value instanceof Map<?, ?> properties) {
+                properties.forEach((key, propertyValue) -> {
+                    String path = prefix + "properties." + checkedKey(String.valueOf(key));
+                    if (propertyValue == null) {
+                        update.unset(path);
+                    } else if (propertyValue instanceof String || propertyValue instanceof Number
+                        || propertyValue instanceof Boolean) {
+                        update.set(path, String.valueOf(propertyValue));
+                    } else {
+                        // Properties are stored as strings; an object or array would only survive as its toString()
+                        throw new IllegalArgumentException("Property " + key + " must be a string, number or boolean");
+                    }
+                });
+            } else {
+                update.set(prefix + field, value);
+            }
+        });
+        return update;
+    }
+    
+    private static String typeName(Class<?> type) {
+        if (type == Integer.class) {
+            return "an integer";
+        }
+        return type == Map.class ? "an object" : "a string";
+    }
+    
+    private Optional<Page> applyComponentUpdate(String pageId, String componentId, Update update,
+                                                Long expectedVersion, Long expectedComponentVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        update.set("components.$.updatedAt", now).inc("components.$.version", 1);
+        
+        Criteria component = Criteria.where("id").is(componentId);
+        if (expectedComponentVersion != null) {
+            // Components saved before versioning have no version and count as version 0
+            component = expectedComponentVersion == 0
+                ? component.and("version").in(0L, null)
+                : component.and("version").is(expectedComponentVersion);
+        }
+        Query query = pageQuery(pageId, expectedVersion).addCriteria(Criteria.where("components").elemMatch(component));
+        // Positional projection: only the matched component comes back
+        query.fields().include("version", "updatedAt").position("components", 1);
+        return modify(pageId, query, touch(update, now), Criteria.where("components.id").is(componentId));
+    }
+    
+    /**
+     * Appends a component with {@code $push}, assigning an id when it has none.
+     */
+    public Optional<Page> addComponent(String pageId, Page.UIComponent component, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        if (component.getId() == null || component.getId().isBlank()) {
+            component.setId(UUID.randomUUID().toString());
+        }
+        component.setCreatedAt(now);
+        component.setUpdatedAt(now);
+        component.setVersion(0L);
+        
+        Query query = pageQuery(pageId, expectedVersion);
+        query.fields().include("version", "updatedAt");
+        return modify(pageId, query, touch(new Update().push("components", component), now), null)
+            .map(page -> {
+                page.setComponents(List.of(component));
+                return page;
+            });
+    }
+    
+    /**
+     * Removes a component with {@code $pull}.
+     */
+    public Optional<Page> removeComponent(String pageId, String componentId, Long expectedVersion) {
+        Query query = pageQuery(pageId, expectedVersion)
+            .addCriteria(Criteria.where("components").elemMatch(Criteria.where("id").is(componentId)));
+        query.fields().include("version", "updatedAt");
+        Update update = new Update().pull("components", Query.query(Criteria.where("id").is(componentId)));
+        return modify(pageId, query, touch(update, LocalDateTime.now()), Criteria.where("components.id").is(componentId));
+    }
+    
+    private Query pageQuery(String pageId, Long expectedVersion) {
+        Query query = Query.query(Criteria.where("id").is(pageId));
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
+        }
+        return query;
+    }
+    
+    private Update touch(Update update, LocalDateTime now) {
+        return update.set("updatedAt", now).inc("version", 1);
+    }
+    
+    private Optional<Page> modify(String pageId, Query query, Update update, Criteria target) {
+        Page result = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Page.class);
+        if (result == null) {
+            // Distinguish a missing page or component from a version conflict
+            Query exists = Query.query(Criteria.where("id").is(pageId));
+            if (target != null) {
+                exists.addCriteria(target);
+            }
+            if (mongoTemplate.exists(exists, Page.class)) {
+                throw new OptimisticLockingFailureException("Page " + pageId + " was modified concurrently");
+            }
+            return Optional.empty();
+        }
+        afterTemplateWrite(pageId);
+        return Optional.of(result);
+    }
+    
+    // Template updates bypass the repository events that normally keep these in sync
+    private void afterTemplateWrite(String pageId) {
+        pageSnapshotService.evict(pageId);
+        mongoQueryService.invalidateCollection(mongoTemplate.getCollectionName(Page.class));
+    }
+    
+    private static String checkedKey(String key) {
+        if (key.isEmpty() || key.contains(".") || key.startsWith("$")) {
+            throw new IllegalArgumentException("Invalid property name: " + key);
+        }
+        return key;
+    }
 }
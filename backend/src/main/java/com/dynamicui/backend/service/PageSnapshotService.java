@@ -0,0 +1,145 @@
+package com.dynamicui.backend.service;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.repository.PageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps published pages as gzip-compressed JSON, serialized once when the page is saved,
+ * so a published read is served from bytes without a query or Jackson pass. Snapshots live
+ * in this instance's memory; once older than the TTL a snapshot is checked against the
+ * stored page version (a key-only read) and rebuilt if another instance changed the page.
+ * A snapshot never replaces one built from a newer version of the page.
+ */
+@Service
+public class PageSnapshotService {
+
+    @Autowired
+    private PageRepository pageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${page.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${page.snapshot.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${page.snapshot.ttl-ms:5000}")
+    private long ttlMs;
+
+    private final Map<String, PageSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public record PageSnapshot(byte[] gzip, String etag, LocalDateTime updatedAt, Long version, long checkedAt) {
+
+        PageSnapshot checked(long now) {
+            return new PageSnapshot(gzip, etag, updatedAt, version, now);
+        }
+
+        public byte[] json() {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot of a published page, building it on first read after a restart
+     * or eviction and revalidating it once it is older than the TTL.
+     */
+    public Optional<PageSnapshot> getPublished(String id) {
+        PageSnapshot snapshot = snapshots.get(id);
+        if (snapshot != null) {
+            long now = System.currentTimeMillis();
+            if (now - snapshot.checkedAt() < ttlMs) {
+                return Optional.of(snapshot);
+            }
+            Optional<Page> current = pageRepository.findPublishedVersionById(id);
+            if (current.isEmpty()) {
+                snapshots.remove(id, snapshot);
+                return Optional.empty();
+            }
+            if (Objects.equals(current.get().getVersion(), snapshot.version())) {
+                PageSnapshot checked = snapshot.checked(now);
+                snapshots.replace(id, snapshot, checked);
+                return Optional.of(checked);
+            }
+        }
+        Optional<PageSnapshot> loaded = pageRepository.findByIdAndIsPublished(id, true).map(this::store);
+        if (loaded.isEmpty() && snapshot != null) {
+            snapshots.remove(id, snapshot);
+        }
+        return loaded;
+    }
+
+    /**
+     * Rebuilds the snapshot after a save, or drops it when the page is no longer published.
+     */
+    public void refresh(Page page) {
+        if (Boolean.TRUE.equals(page.getIsPublished())) {
+            store(page);
+        } else {
+            evict(page.getId());
+        }
+    }
+
+    public void evict(String id) {
+        if (id != null) {
+            snapshots.remove(id);
+        }
+    }
+
+    private PageSnapshot store(Page page) {
+        PageSnapshot snapshot = build(page);
+        if (!enabled) {
+            return snapshot;
+        }
+        // A read that loaded the page before a concurrent save must not overwrite the newer snapshot
+        PageSnapshot stored = snapshots.compute(page.getId(), (id, existing) -> {
+            if (existing == null) {
+                return snapshots.size() < maxEntries ? snapshot : null;
+            }
+            return versionOf(existing.version()) > versionOf(snapshot.version()) ? existing : snapshot;
+        });
+        return stored != null ? stored : snapshot;
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : -1;
+    }
+
+    private PageSnapshot build(Page page) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(page);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(json);
+            }
+            // Weak: the gzip and identity encodings are the same representation of the page
+            String etag = "W/\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            return new PageSnapshot(buffer.toByteArray(), etag, page.getUpdatedAt(), page.getVersion(),
+                System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize page " + page.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.dynamicui.config;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.DatasetSeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Seeds a dataset's collection on startup, e.g.
+ * {@code --seed.dataset=Users --seed.rows=1000000 --seed.writers=8}.
+ * Runs after the sample datasets have been created.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "seed.dataset")
+public class DatasetSeedRunner implements CommandLineRunner {
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    @Autowired
+    private DatasetSeedService datasetSeedService;
+
+    @Value("${seed.dataset}")
+    private String datasetName;
+
+    @Value("${seed.rows:100000}")
+    private int rows;
+
+    @Value("${seed.collection:}")
+    private String collection;
+
+    @Value("${seed.batch-size:#{null}}")
+    private Integer batchSize;
+
+    @Value("${seed.writers:#{null}}")
+    private Integer writers;
+
+    @Value("${seed.random-seed:#{null}}")
+    private Long seed;
+
+    @Value("${seed.drop:false}")
+    private boolean drop;
+
+    @Override
+    public void run(String... args) throws Exception {
+        Dataset dataset = datasetCache.findByName(datasetName)
+            .orElseThrow(() -> new IllegalStateException("No dataset named " + datasetName));
+
+        Map<String, Object> report = datasetSeedService.seed(dataset, collection, rows, seed, batchSize, writers, drop);
+        System.out.println("Seeded " + report.get("rows") + " rows into " + report.get("collection")
+            + " in " + report.get("elapsedMs") + " ms (" + report.get("docsPerSecond") + " docs/s)");
+    }
+}
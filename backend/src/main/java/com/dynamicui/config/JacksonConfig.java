@@ -0,0 +1,19 @@
+package com.dynamicui.config;
+
+import com.dynamicui.service.DatasetReferenceResolver;
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modules registered on the application's ObjectMapper; Spring Boot picks up every
+ * {@link Module} bean.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module lazyReferenceGuard() {
+        return DatasetReferenceResolver.serializationGuard();
+    }
+}
@@ -0,0 +1,40 @@
+package com.dynamicui.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class QueryExecutorConfig {
+
+    @Value("${mongo.query.executor.threads:32}")
+    private int threads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Executor for fanning out Mongo queries (batch requests). With virtual threads each query
+     * gets its own cheap thread and callers bound the fan-out themselves; otherwise a bounded
+     * pool is kept apart from the servlet threads so one large batch cannot exhaust them.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService mongoQueryExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mongo-query-", 1).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mongo-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+}
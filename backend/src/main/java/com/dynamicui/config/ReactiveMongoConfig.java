@@ -0,0 +1,23 @@
+package com.dynamicui.config;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Brings in the reactive MongoClient, template and repositories that DynamicUiApplication
+ * excludes, only when the reactive read path is on; otherwise the application would build
+ * and keep a second client with its own connection pool that nothing uses.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+@ImportAutoConfiguration({
+    MongoReactiveAutoConfiguration.class,
+    MongoReactiveDataAutoConfiguration.class,
+    MongoReactiveRepositoriesAutoConfiguration.class
+})
+public class ReactiveMongoConfig {
+}
@@ -0,0 +1,39 @@
+package com.dynamicui.config;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Gives documents written before optimistic locking was introduced an initial version.
+ * Spring Data treats an entity with a null {@code @Version} as new, so saving one of them
+ * would attempt an insert and fail on the duplicate id. Runs once every singleton is created,
+ * which is before the web server starts accepting requests and before any runner.
+ */
+@Component
+public class VersionFieldInitializer implements SmartInitializingSingleton {
+
+    private static final List<Class<?>> VERSIONED = List.of(Page.class, Dataset.class, UIComponent.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Class<?> type : VERSIONED) {
+            mongoTemplate.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                type);
+        }
+    }
+}
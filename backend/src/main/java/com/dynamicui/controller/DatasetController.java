@@ -3,13 +3,30 @@ package com.dynamicui.controller;
 import com.dynamicui.model.Dataset;
 import com.dynamicui.repository.DatasetRepository;
 import com.dynamicui.service.DataGenerationService;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.DatasetSeedService;
+import com.dynamicui.service.ListingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/datasets")
@@ -19,38 +36,106 @@ public class DatasetController {
     @Autowired
     private DatasetRepository datasetRepository;
 
+    @Autowired
+    private DatasetCache datasetCache;
+
     @Autowired
     private DataGenerationService dataGenerationService;
 
+    @Autowired
+    private DatasetSeedService datasetSeedService;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Lists datasets. Filter: {@code name} (substring, case-insensitive). {@code fields}
+     * limits the returned properties.
+     * With {@code page} or {@code size} the result is one page; with {@code stream=true} or an
+     * NDJSON Accept header every match is streamed from a cursor; otherwise at most
+     * {@code listing.max-unpaged-results} are returned, flagged by {@code X-Truncated}.
+     */
     @GetMapping
-    public List<Dataset> getAllDatasets() {
-        return datasetRepository.findAll();
+    public ResponseEntity<?> getAllDatasets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean stream,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Sort sort,
+            WebRequest request) {
+        boolean streaming = stream || NdjsonWriter.accepts(accept);
+        ResourceVersion version = listVersion("list", name, fields, page, size, sort, streaming);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+
+        Criteria criteria = new Criteria();
+        if (name != null && !name.isEmpty()) {
+            criteria.and("name").regex(Pattern.quote(name), "i");
+        }
+        if (streaming) {
+            StreamingResponseBody body = outputStream -> {
+                NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+                listingService.stream(Dataset.class, criteria, sort, fields, writer::write);
+                writer.flush();
+            };
+            return version.okResponse().contentType(NdjsonWriter.NDJSON).body(body);
+        }
+        if (page != null || size != null) {
+            return version.ok(PagedResponse.of(
+                listingService.page(Dataset.class, criteria, page != null ? page : 0, size, sort, fields)));
+        }
+        ListingService.Capped listing = listingService.list(Dataset.class, criteria, sort, fields);
+        return version.okResponse()
+            .header("X-Truncated", String.valueOf(listing.truncated()))
+            .body(listing.items());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Dataset> getDatasetById(@PathVariable String id) {
-        Optional<Dataset> dataset = datasetRepository.findById(id);
-        return dataset.map(ResponseEntity::ok)
+    public ResponseEntity<Dataset> getDatasetById(@PathVariable String id, WebRequest request) {
+        Optional<Dataset> dataset = datasetCache.findById(id);
+        return dataset.map(d -> {
+                         ResourceVersion version = ResourceVersion.of(d.getId(), d.getUpdatedAt());
+                         return version.notModified(request) ? version.<Dataset>notModifiedResponse() : version.ok(d);
+                     })
                      .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Dataset createDataset(@RequestBody Dataset dataset) {
+        dataset.setVersion(null);
         dataset.onCreate(); // Set timestamps
-        return datasetRepository.save(dataset);
+        Dataset saved = datasetRepository.save(dataset);
+        datasetCache.invalidate(saved.getId());
+        return saved;
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Dataset> updateDataset(@PathVariable String id, @RequestBody Dataset datasetDetails) {
+    public ResponseEntity<?> updateDataset(@PathVariable String id, @RequestBody Dataset datasetDetails) {
         Optional<Dataset> optionalDataset = datasetRepository.findById(id);
         
         if (optionalDataset.isPresent()) {
             Dataset dataset = optionalDataset.get();
+            // An update carrying a version must be based on the stored one; without a version it overwrites
+            if (datasetDetails.getVersion() != null && !datasetDetails.getVersion().equals(dataset.getVersion())) {
+                return conflict(dataset.getVersion());
+            }
             dataset.setName(datasetDetails.getName());
             dataset.setDescription(datasetDetails.getDescription());
             dataset.setColumns(datasetDetails.getColumns());
             dataset.onUpdate(); // Update timestamp
-            return ResponseEntity.ok(datasetRepository.save(dataset));
+            try {
+                Dataset saved = datasetRepository.save(dataset);
+                datasetCache.invalidate(id);
+                return ResponseEntity.ok(saved);
+            } catch (OptimisticLockingFailureException e) {
+                return conflict(datasetRepository.findById(id).map(Dataset::getVersion).orElse(null));
+            }
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -61,26 +146,98 @@ public class DatasetController {
         return datasetRepository.findById(id)
                 .map(dataset -> {
                     datasetRepository.delete(dataset);
+                    datasetCache.invalidate(id);
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
-    public List<Dataset> searchDatasets(@RequestParam String name) {
-        return datasetRepository.findByNameContainingIgnoreCase(name);
+    public ResponseEntity<List<Dataset>> searchDatasets(@RequestParam String name, WebRequest request) {
+        ResourceVersion version = listVersion("search", name);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+        return version.ok(datasetRepository.findByNameContainingIgnoreCase(name));
     }
 
     @GetMapping("/{id}/data")
-    public ResponseEntity<List<Map<String, Object>>> getDatasetData(
+    public ResponseEntity<StreamingResponseBody> getDatasetData(
             @PathVariable String id,
-            @RequestParam(defaultValue = "50") int limit) {
-        Optional<Dataset> dataset = datasetRepository.findById(id);
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "0") int offset,
+            WebRequest request) {
+        if (limit < 0 || offset < 0 || (long) offset + limit > Integer.MAX_VALUE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Dataset> dataset = datasetCache.findById(id);
         if (dataset.isPresent()) {
-            List<Map<String, Object>> data = dataGenerationService.generateDataForDataset(dataset.get(), limit);
-            return ResponseEntity.ok(data);
+            // Seeded rows are a pure function of the dataset and the parameters, so they can be revalidated
+            ResourceVersion version = seed != null
+                ? ResourceVersion.of(id, dataset.get().getUpdatedAt(), limit, seed, offset)
+                : null;
+            if (version != null && version.notModified(request)) {
+                return version.notModifiedResponse();
+            }
+            // Rows are generated while the response is written, so large limits stay cheap on the heap
+            StreamingResponseBody body = outputStream ->
+                dataGenerationService.writeDataForDataset(dataset.get(), limit, seed, offset, outputStream);
+            return (version != null ? version.okResponse() : ResponseEntity.ok())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Starts a background seed and answers 202 with the job, which
+     * {@code GET /api/datasets/seed-jobs/{jobId}} reports on. Rows are added to the target
+     * collection; dropping it first is only possible through DatasetSeedRunner.
+     */
+    @PostMapping("/{id}/seed")
+    public ResponseEntity<?> seedDataset(
+            @PathVariable String id,
+            @RequestParam int rows,
+            @RequestParam(required = false) String collection,
+            @RequestParam(required = false) Integer batchSize,
+            @RequestParam(required = false) Integer writers,
+            @RequestParam(required = false) Long seed) {
+        Optional<Dataset> dataset = datasetCache.findById(id);
+        if (dataset.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            DatasetSeedService.SeedJob job = datasetSeedService.submit(dataset.get(), collection, rows, seed, batchSize, writers);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/datasets/seed-jobs/" + job.getId()))
+                .body(job);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/seed-jobs/{jobId}")
+    public ResponseEntity<DatasetSeedService.SeedJob> getSeedJob(@PathVariable String jobId) {
+        DatasetSeedService.SeedJob job = datasetSeedService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    private ResponseEntity<Map<String, Object>> conflict(Long currentVersion) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Dataset was modified concurrently");
+        body.put("version", currentVersion);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    private ResourceVersion listVersion(Object... parameters) {
+        LocalDateTime latestUpdate = datasetRepository.findTopByOrderByUpdatedAtDesc()
+            .map(Dataset::getUpdatedAt)
+            .orElse(null);
+        return ResourceVersion.ofList(datasetRepository.count(), latestUpdate, parameters);
+    }
 }
@@ -1,11 +1,25 @@
 package com.dynamicui.controller;
 
+import com.dynamicui.model.BatchQueryRequest;
 import com.dynamicui.model.MongoQuery;
+import com.dynamicui.service.AggregationPipelineValidator;
+import com.dynamicui.service.BatchQueryService;
+import com.dynamicui.service.IndexAdvisorService;
+import com.dynamicui.service.KeysetPagination;
 import com.dynamicui.service.MongoQueryService;
+import com.dynamicui.service.QuerySubscriptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,8 +31,30 @@ public class MongoQueryController {
     @Autowired
     private MongoQueryService mongoQueryService;
 
+    @Autowired
+    private BatchQueryService batchQueryService;
+
+    @Autowired
+    private IndexAdvisorService indexAdvisorService;
+
+    @Autowired
+    private QuerySubscriptionService querySubscriptionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/query")
-    public ResponseEntity<Map<String, Object>> executeQuery(@RequestBody MongoQuery query) {
+    public ResponseEntity<?> executeQuery(
+            @RequestBody MongoQuery query,
+            @RequestParam(required = false) Boolean stream,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (query.isKeysetPagination()) {
+            return executeKeysetPage(query);
+        }
+        if (Boolean.TRUE.equals(stream) || NdjsonWriter.accepts(accept)) {
+            return streamQuery(query);
+        }
+
         try {
             List<Map<String, Object>> results = mongoQueryService.executeQuery(query);
             return ResponseEntity.ok(Map.of(
@@ -36,6 +72,123 @@ public class MongoQueryController {
         }
     }
 
+    private ResponseEntity<Map<String, Object>> executeKeysetPage(MongoQuery query) {
+        try {
+            KeysetPagination.Page page = mongoQueryService.executeKeysetPage(query);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("data", page.data());
+            response.put("count", page.data().size());
+            response.put("hasMore", page.continuationToken() != null);
+            response.put("continuationToken", page.continuationToken());
+            response.put("query", query);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage(),
+                "query", query
+            ));
+        }
+    }
+
+    @PostMapping("/query/batch")
+    public ResponseEntity<Map<String, Object>> executeBatch(@RequestBody BatchQueryRequest request) {
+        try {
+            long start = System.currentTimeMillis();
+            List<Map<String, Object>> results = batchQueryService.executeBatch(request);
+            long failed = results.stream().filter(result -> !Boolean.TRUE.equals(result.get("success"))).count();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "results", results,
+                "count", results.size(),
+                "failed", failed,
+                "elapsedMs", System.currentTimeMillis() - start
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Streams one document per line as the cursor yields it. The last line is a
+     * status frame such as {"$success":true,"$count":42}; its keys use the "$" prefix,
+     * which stored documents cannot have at the top level.
+     */
+    private ResponseEntity<StreamingResponseBody> streamQuery(MongoQuery query) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            try {
+                long count = mongoQueryService.streamQuery(query, writer::write);
+                writer.write(Map.of("$success", true, "$count", count));
+            } catch (UncheckedIOException e) {
+                // The response itself failed (client gone); there is no stream left to report to
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                writer.write(Map.of(
+                    "$success", false,
+                    "$error", String.valueOf(e.getMessage())
+                ));
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(NdjsonWriter.NDJSON).body(body);
+    }
+
+    /**
+     * Registers a live query. Connect to the returned events URL (an EventSource) for a
+     * snapshot of the results followed by upsert and delete events as the collection changes.
+     */
+    @PostMapping("/subscriptions")
+    public ResponseEntity<Map<String, Object>> subscribe(@RequestBody MongoQuery query) {
+        try {
+            String id = querySubscriptionService.subscribe(query);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "id", id,
+                "events", "/api/mongo/subscriptions/" + id + "/events",
+                "query", query
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage(),
+                "query", query
+            ));
+        }
+    }
+
+    @GetMapping(value = "/subscriptions/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscriptionEvents(@PathVariable String id) {
+        try {
+            return querySubscriptionService.connect(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            // Live query capacity is used up; EventSource clients retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @DeleteMapping("/subscriptions/{id}")
+    public ResponseEntity<Map<String, Object>> unsubscribe(@PathVariable String id) {
+        if (!querySubscriptionService.unsubscribe(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("success", true, "id", id));
+    }
+
+    @GetMapping("/subscriptions/stats")
+    public ResponseEntity<Map<String, Object>> getSubscriptionStats() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "stats", querySubscriptionService.getStats()
+        ));
+    }
+
     @GetMapping("/collections")
     public ResponseEntity<Map<String, Object>> getCollections() {
         try {
@@ -52,6 +205,82 @@ public class MongoQueryController {
         }
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "stats", mongoQueryService.getCacheStats()
+        ));
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        mongoQueryService.clearCache();
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    @DeleteMapping("/cache/{collection}")
+    public ResponseEntity<Map<String, Object>> invalidateCollection(@PathVariable String collection) {
+        mongoQueryService.invalidateCollection(collection);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "collection", collection
+        ));
+    }
+
+    @GetMapping("/index-advice")
+    public ResponseEntity<Map<String, Object>> getIndexAdvice() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "report", indexAdvisorService.getReport()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Explains the most expensive not-yet-explained query shapes; the number per call is
+     * capped by mongo.index-advisor.max-explains-per-request so it cannot run unbounded.
+     */
+    @PostMapping("/index-advice/explain")
+    public ResponseEntity<Map<String, Object>> explainIndexAdvice(
+            @RequestParam(defaultValue = "25") int limit) {
+        try {
+            int explained = indexAdvisorService.explainStale(limit);
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "explained", explained,
+                "report", indexAdvisorService.getReport()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping("/index-advice/apply")
+    public ResponseEntity<Map<String, Object>> applyIndexAdvice() {
+        try {
+            List<Map<String, Object>> created = indexAdvisorService.applyRecommendations();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "created", created
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
     @PostMapping("/query/validate")
     public ResponseEntity<Map<String, Object>> validateQuery(@RequestBody MongoQuery query) {
         try {
@@ -62,6 +291,9 @@ public class MongoQueryController {
                     "error", "Collection name is required"
                 ));
             }
+            if (query.isAggregation()) {
+                AggregationPipelineValidator.validate(query);
+            }
 
             return ResponseEntity.ok(Map.of(
                 "success", true,
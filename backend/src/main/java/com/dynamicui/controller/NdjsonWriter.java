@@ -0,0 +1,51 @@
+package com.dynamicui.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON value per line (newline-delimited JSON) to a response stream without
+ * closing the underlying stream, which stays owned by the servlet container.
+ */
+public class NdjsonWriter {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
+    private final ObjectWriter objectWriter;
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        // Let the container decide when to send a chunk instead of flushing per line. Root values
+        // share one generator, which would otherwise separate them with a space after each newline.
+        this.objectWriter = objectMapper.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("");
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public static boolean accepts(String acceptHeader) {
+        return acceptHeader != null && acceptHeader.contains(NDJSON_VALUE);
+    }
+
+    public void write(Object value) {
+        try {
+            objectWriter.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
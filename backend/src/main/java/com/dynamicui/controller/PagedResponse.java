@@ -0,0 +1,16 @@
+package com.dynamicui.controller;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * JSON shape of a paged listing, independent of how Spring Data serializes {@link Page}.
+ */
+public record PagedResponse<T>(List<T> content, int page, int size, long totalElements, int totalPages) {
+
+    public static <T> PagedResponse<T> of(Page<T> page) {
+        return new PagedResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+            page.getTotalElements(), page.getTotalPages());
+    }
+}
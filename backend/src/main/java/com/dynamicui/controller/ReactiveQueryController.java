@@ -0,0 +1,84 @@
+package com.dynamicui.controller;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.repository.ReactivePageRepository;
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.service.ReactiveMongoQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Reactive alternative to the query and page read endpoints, enabled with
+ * app.reactive.enabled=true and served under app.reactive.base-path. Handlers return
+ * publishers, so no servlet thread is held while MongoDB works. With
+ * Accept: application/x-ndjson results are written one element at a time as the cursor
+ * produces them, with demand propagated back to the driver.
+ */
+@RestController
+@RequestMapping("${app.reactive.base-path:/api/reactive}")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveQueryController {
+
+    @Autowired
+    private ReactiveMongoQueryService reactiveMongoQueryService;
+
+    @Autowired
+    private ReactivePageRepository reactivePageRepository;
+
+    @PostMapping(value = "/mongo/query", produces = NdjsonWriter.NDJSON_VALUE)
+    public Flux<Map<String, Object>> streamQuery(@RequestBody MongoQuery query) {
+        return reactiveMongoQueryService.executeQuery(query);
+    }
+
+    @PostMapping(value = "/mongo/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Map<String, Object>>> executeQuery(@RequestBody MongoQuery query) {
+        return reactiveMongoQueryService.executeQuery(query)
+            .collectList()
+            .map(results -> ResponseEntity.ok(Map.<String, Object>of(
+                "success", true,
+                "data", results,
+                "count", results.size(),
+                "query", query
+            )))
+            .onErrorResume(e -> Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", String.valueOf(e.getMessage()),
+                "query", query
+            ))));
+    }
+
+    @GetMapping(value = "/pages", produces = NdjsonWriter.NDJSON_VALUE)
+    public Flux<Page> streamPages(@RequestParam(required = false) Boolean published) {
+        return findPages(published);
+    }
+
+    @GetMapping(value = "/pages", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Page> getAllPages(@RequestParam(required = false) Boolean published) {
+        return findPages(published);
+    }
+
+    @GetMapping("/pages/{id}")
+    public Mono<ResponseEntity<Page>> getPageById(
+            @PathVariable String id,
+            @RequestParam(required = false) Boolean published) {
+        Mono<Page> page = Boolean.TRUE.equals(published)
+            ? reactivePageRepository.findByIdAndIsPublished(id, true)
+            : reactivePageRepository.findById(id);
+        return page.map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private Flux<Page> findPages(Boolean published) {
+        return Boolean.TRUE.equals(published)
+            ? reactivePageRepository.findByIsPublished(true)
+            : reactivePageRepository.findByOrderByUpdatedAtDesc();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dynamicui.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Validators for conditional GETs. A document's version is its id and {@code updatedAt}; a
+ * list's version is the collection's count and latest {@code updatedAt} plus the request's
+ * parameters, which changes on every create, update or delete without serializing the list.
+ * Lists only get an ETag: a delete leaves the latest {@code updatedAt} unchanged, so a
+ * Last-Modified date would let If-Modified-Since validate a stale list. Set-valued
+ * parameters are sorted so the ETag does not depend on their iteration order.
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    public static ResourceVersion of(Object id, LocalDateTime updatedAt, Object... parameters) {
+        return new ResourceVersion(etag(id, millis(updatedAt), canonical(parameters)), millis(updatedAt));
+    }
+
+    public static ResourceVersion ofList(long count, LocalDateTime latestUpdate, Object... parameters) {
+        return new ResourceVersion(etag(count, millis(latestUpdate), canonical(parameters)), -1);
+    }
+
+    /**
+     * Checks If-None-Match / If-Modified-Since; call before loading the body.
+     */
+    public boolean notModified(WebRequest request) {
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    public <T> ResponseEntity<T> notModifiedResponse() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).eTag(etag).build();
+    }
+
+    public ResponseEntity.BodyBuilder okResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag);
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response;
+    }
+
+    public <T> ResponseEntity<T> ok(T body) {
+        return okResponse().body(body);
+    }
+
+    private static String etag(Object... parts) {
+        String key = String.join("|", Arrays.stream(parts).map(String::valueOf).toList());
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static String canonical(Object value) {
+        if (value instanceof Object[] array) {
+            return canonical(Arrays.asList(array));
+        } else if (value instanceof Set<?> set) {
+            return set.stream().map(ResourceVersion::canonical).sorted().toList().toString();
+        } else if (value instanceof Collection<?> items) {
+            return items.stream().map(ResourceVersion::canonical).toList().toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
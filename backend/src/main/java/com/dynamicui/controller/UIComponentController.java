@@ -1,13 +1,31 @@
 package com.dynamicui.controller;
 
+import com.dynamicui.model.Dataset;
 import com.dynamicui.model.UIComponent;
+import com.dynamicui.repository.DatasetRepository;
 import com.dynamicui.repository.UIComponentRepository;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.DatasetReferenceResolver;
+import com.dynamicui.service.ListingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/components")
@@ -17,40 +35,122 @@ public class UIComponentController {
     @Autowired
     private UIComponentRepository componentRepository;
 
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private ListingService listingService;
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    @Autowired
+    private DatasetReferenceResolver datasetReferenceResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Lists components. Filters: {@code type}, {@code datasetId} and {@code name} (substring,
+     * case-insensitive). {@code fields} limits the returned properties.
+     * With {@code page} or {@code size} the result is one page; with {@code stream=true} or an
+     * NDJSON Accept header every match is streamed from a cursor; otherwise at most
+     * {@code listing.max-unpaged-results} are returned, flagged by {@code X-Truncated}.
+     */
     @GetMapping
-    public List<UIComponent> getAllComponents() {
-        return componentRepository.findAll();
+    public ResponseEntity<?> getAllComponents(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String datasetId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean stream,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            Sort sort,
+            WebRequest request) {
+        boolean streaming = stream || NdjsonWriter.accepts(accept);
+        ResourceVersion version = listVersion("list", type, datasetId, name, fields, page, size, sort, streaming);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+
+        Criteria criteria = new Criteria();
+        if (type != null) {
+            criteria.and("type").is(type);
+        }
+        if (datasetId != null) {
+            criteria.and("datasetId").is(datasetId);
+        }
+        if (name != null && !name.isEmpty()) {
+            criteria.and("name").regex(Pattern.quote(name), "i");
+        }
+        if (streaming) {
+            StreamingResponseBody body = outputStream -> {
+                NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+                listingService.stream(UIComponent.class, criteria, sort, fields, writer::write);
+                writer.flush();
+            };
+            return version.okResponse().contentType(NdjsonWriter.NDJSON).body(body);
+        }
+        if (page != null || size != null) {
+            return version.ok(PagedResponse.of(
+                listingService.page(UIComponent.class, criteria, page != null ? page : 0, size, sort, fields)));
+        }
+        ListingService.Capped listing = listingService.list(UIComponent.class, criteria, sort, fields);
+        return version.okResponse()
+            .header("X-Truncated", String.valueOf(listing.truncated()))
+            .body(listing.items());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<UIComponent> getComponentById(@PathVariable String id) {
+    public ResponseEntity<UIComponent> getComponentById(@PathVariable String id, WebRequest request) {
         Optional<UIComponent> component = componentRepository.findById(id);
-        return component.map(ResponseEntity::ok)
+        component.ifPresent(c -> datasetReferenceResolver.resolve(List.of(c)));
+        return component.map(c -> {
+                           // The referenced dataset is embedded in the response, so its version counts too
+                           ResourceVersion version = ResourceVersion.of(c.getId(), c.getUpdatedAt(),
+                               c.getDataset() != null ? c.getDataset().getUpdatedAt() : null);
+                           return version.notModified(request) ? version.<UIComponent>notModifiedResponse() : version.ok(c);
+                       })
                        .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/dataset/{datasetId}")
-    public List<UIComponent> getComponentsByDataset(@PathVariable String datasetId) {
-        return componentRepository.findByDatasetId(datasetId);
+    public ResponseEntity<List<UIComponent>> getComponentsByDataset(@PathVariable String datasetId, WebRequest request) {
+        ResourceVersion version = listVersion("dataset", datasetId);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+        return version.ok(resolved(componentRepository.findByDatasetId(datasetId)));
     }
 
     @GetMapping("/type/{type}")
-    public List<UIComponent> getComponentsByType(@PathVariable String type) {
-        return componentRepository.findByType(type);
+    public ResponseEntity<List<UIComponent>> getComponentsByType(@PathVariable String type, WebRequest request) {
+        ResourceVersion version = listVersion("type", type);
+        if (version.notModified(request)) {
+            return version.notModifiedResponse();
+        }
+        return version.ok(resolved(componentRepository.findByType(type)));
     }
 
     @PostMapping
     public UIComponent createComponent(@RequestBody UIComponent component) {
+        component.setVersion(null);
         component.onCreate(); // Set timestamps
         return componentRepository.save(component);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<UIComponent> updateComponent(@PathVariable String id, @RequestBody UIComponent componentDetails) {
+    public ResponseEntity<?> updateComponent(@PathVariable String id, @RequestBody UIComponent componentDetails) {
         Optional<UIComponent> optionalComponent = componentRepository.findById(id);
         
         if (optionalComponent.isPresent()) {
             UIComponent component = optionalComponent.get();
+            // An update carrying a version must be based on the stored one; without a version it overwrites
+            if (componentDetails.getVersion() != null && !componentDetails.getVersion().equals(component.getVersion())) {
+                return conflict(component.getVersion());
+            }
             component.setType(componentDetails.getType());
             component.setName(componentDetails.getName());
             component.setProperties(componentDetails.getProperties());
@@ -61,7 +161,13 @@ public class UIComponentController {
             component.setWidth(componentDetails.getWidth());
             component.setHeight(componentDetails.getHeight());
             component.onUpdate(); // Update timestamp
-            return ResponseEntity.ok(componentRepository.save(component));
+            try {
+                UIComponent saved = componentRepository.save(component);
+                datasetCache.invalidateComponent(id);
+                return ResponseEntity.ok(saved);
+            } catch (OptimisticLockingFailureException e) {
+                return conflict(componentRepository.findById(id).map(UIComponent::getVersion).orElse(null));
+            }
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -72,8 +178,33 @@ public class UIComponentController {
         return componentRepository.findById(id)
                 .map(component -> {
                     componentRepository.delete(component);
+                    datasetCache.invalidateComponent(id);
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    private List<UIComponent> resolved(List<UIComponent> components) {
+        datasetReferenceResolver.resolve(components);
+        return components;
+    }
+
+    private ResponseEntity<Map<String, Object>> conflict(Long currentVersion) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Component was modified concurrently");
+        body.put("version", currentVersion);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    // Components embed their referenced dataset, so a dataset update also changes the list
+    private ResourceVersion listVersion(Object... parameters) {
+        LocalDateTime latestUpdate = componentRepository.findTopByOrderByUpdatedAtDesc()
+            .map(UIComponent::getUpdatedAt)
+            .orElse(null);
+        LocalDateTime latestDatasetUpdate = datasetRepository.findTopByOrderByUpdatedAtDesc()
+            .map(Dataset::getUpdatedAt)
+            .orElse(null);
+        return ResourceVersion.ofList(componentRepository.count(), latestUpdate,
+            latestDatasetUpdate, datasetRepository.count(), List.of(parameters));
+    }
 }
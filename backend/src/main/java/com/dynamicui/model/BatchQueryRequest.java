@@ -0,0 +1,42 @@
+package com.dynamicui.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchQueryRequest {
+    @NotEmpty
+    private List<MongoQuery> queries;
+    
+    private Long deadlineMs;
+    private Integer maxParallelism;
+    
+    public BatchQueryRequest() {}
+    
+    // Getters and Setters
+    public List<MongoQuery> getQueries() {
+        return queries;
+    }
+    
+    public void setQueries(List<MongoQuery> queries) {
+        this.queries = queries;
+    }
+    
+    public Long getDeadlineMs() {
+        return deadlineMs;
+    }
+    
+    public void setDeadlineMs(Long deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
+    
+    public Integer getMaxParallelism() {
+        return maxParallelism;
+    }
+    
+    public void setMaxParallelism(Integer maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+}
@@ -1,6 +1,8 @@
 package com.dynamicui.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +18,7 @@ public class Dataset {
     private String id;
 
     @NotBlank
+    @Indexed
     @Field("name")
     private String name;
 
@@ -28,9 +31,14 @@ public class Dataset {
     @Field("created_at")
     private LocalDateTime createdAt;
 
+    @Indexed
     @Field("updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Field("version")
+    private Long version;
+
     // Constructors
     public Dataset() {
         this.createdAt = LocalDateTime.now();
@@ -72,4 +80,7 @@ public class Dataset {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
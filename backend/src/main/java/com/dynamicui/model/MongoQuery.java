@@ -1,8 +1,10 @@
 package com.dynamicui.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.validation.constraints.NotBlank;
 
+import java.util.List;
 import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -15,6 +17,17 @@ public class MongoQuery {
     private Map<String, Object> sort;
     private Integer limit;
     private Integer skip;
+    private Boolean keyset;
+    private String continuationToken;
+    private List<Map<String, Object>> pipeline;
+    private Boolean allowDiskUse;
+    private Long maxTimeMs;
+    private String datasetId;
+    private String componentId;
+    private Boolean autoProject;
+    
+    @JsonIgnore
+    private Map<String, Object> hint;
     
     public MongoQuery() {}
     
@@ -23,6 +36,27 @@ public class MongoQuery {
         this.filter = filter;
     }
     
+    /**
+     * A shallow copy: maps and lists are shared, so replace rather than modify them.
+     */
+    public MongoQuery copy() {
+        MongoQuery copy = new MongoQuery(collection, filter);
+        copy.projection = projection;
+        copy.sort = sort;
+        copy.limit = limit;
+        copy.skip = skip;
+        copy.keyset = keyset;
+        copy.continuationToken = continuationToken;
+        copy.pipeline = pipeline;
+        copy.allowDiskUse = allowDiskUse;
+        copy.maxTimeMs = maxTimeMs;
+        copy.datasetId = datasetId;
+        copy.componentId = componentId;
+        copy.autoProject = autoProject;
+        copy.hint = hint;
+        return copy;
+    }
+    
     // Getters and Setters
     public String getCollection() {
         return collection;
@@ -71,4 +105,88 @@ public class MongoQuery {
     public void setSkip(Integer skip) {
         this.skip = skip;
     }
+    
+    public Boolean getKeyset() {
+        return keyset;
+    }
+    
+    public void setKeyset(Boolean keyset) {
+        this.keyset = keyset;
+    }
+    
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+    
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+    
+    public List<Map<String, Object>> getPipeline() {
+        return pipeline;
+    }
+    
+    public void setPipeline(List<Map<String, Object>> pipeline) {
+        this.pipeline = pipeline;
+    }
+    
+    public Boolean getAllowDiskUse() {
+        return allowDiskUse;
+    }
+    
+    public void setAllowDiskUse(Boolean allowDiskUse) {
+        this.allowDiskUse = allowDiskUse;
+    }
+    
+    public Long getMaxTimeMs() {
+        return maxTimeMs;
+    }
+    
+    public void setMaxTimeMs(Long maxTimeMs) {
+        this.maxTimeMs = maxTimeMs;
+    }
+    
+    public String getDatasetId() {
+        return datasetId;
+    }
+    
+    public void setDatasetId(String datasetId) {
+        this.datasetId = datasetId;
+    }
+    
+    public String getComponentId() {
+        return componentId;
+    }
+    
+    public void setComponentId(String componentId) {
+        this.componentId = componentId;
+    }
+    
+    public Boolean getAutoProject() {
+        return autoProject;
+    }
+    
+    public void setAutoProject(Boolean autoProject) {
+        this.autoProject = autoProject;
+    }
+    
+    @JsonIgnore
+    public Map<String, Object> getHint() {
+        return hint;
+    }
+    
+    @JsonIgnore
+    public void setHint(Map<String, Object> hint) {
+        this.hint = hint;
+    }
+    
+    @JsonIgnore
+    public boolean isAggregation() {
+        return pipeline != null && !pipeline.isEmpty();
+    }
+    
+    @JsonIgnore
+    public boolean isKeysetPagination() {
+        return Boolean.TRUE.equals(keyset) || continuationToken != null;
+    }
 }
@@ -1,6 +1,9 @@
 package com.dynamicui.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.DBRef;
@@ -11,12 +14,15 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Document(collection = "ui_components")
+// findByDatasetReference queries the id inside the DBRef
+@CompoundIndex(name = "dataset_ref", def = "{'dataset.$id': 1}")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class UIComponent {
     @Id
     private String id;
 
     @NotBlank
+    @Indexed
     @Field("type")
     private String type; // table, form, chart, text, button, etc.
 
@@ -26,10 +32,12 @@ public class UIComponent {
     @Field("properties")
     private Map<String, Object> properties;
 
-    @DBRef
+    // Lazy, so lists can resolve the references of a whole batch at once (see DatasetReferenceResolver)
+    @DBRef(lazy = true)
     @Field("dataset")
     private Dataset dataset;
 
+    @Indexed
     @Field("dataset_id")
     private String datasetId; // For cases where we just need the ID
 
@@ -48,9 +56,14 @@ public class UIComponent {
     @Field("created_at")
     private LocalDateTime createdAt;
 
+    @Indexed
     @Field("updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Field("version")
+    private Long version;
+
     // Constructors
     public UIComponent() {
         this.createdAt = LocalDateTime.now();
@@ -110,4 +123,7 @@ public class UIComponent {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
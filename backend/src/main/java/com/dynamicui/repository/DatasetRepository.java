@@ -6,11 +6,18 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DatasetRepository extends MongoRepository<Dataset, String> {
     List<Dataset> findByNameContainingIgnoreCase(String name);
     
+    List<Dataset> findByNameIgnoreCase(String name);
+    
     @Query("{ 'name' : { $regex: ?0, $options: 'i' } }")
     List<Dataset> findByNameRegex(String name);
+    
+    // Only updated_at, for list ETags and cache polling
+    @Query(fields = "{ 'updated_at' : 1 }")
+    Optional<Dataset> findTopByOrderByUpdatedAtDesc();
 }
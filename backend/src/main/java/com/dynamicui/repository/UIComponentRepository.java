@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UIComponentRepository extends MongoRepository<UIComponent, String> {
@@ -14,4 +15,8 @@ public interface UIComponentRepository extends MongoRepository<UIComponent, Stri
     
     @Query("{ 'dataset.$id' : ?0 }")
     List<UIComponent> findByDatasetReference(String datasetId);
+    
+    // Only updated_at, for list ETags and cache polling
+    @Query(fields = "{ 'updated_at' : 1 }")
+    Optional<UIComponent> findTopByOrderByUpdatedAtDesc();
 }
@@ -0,0 +1,99 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accepts only the read-only stages chart components need and rejects operators that run
+ * server-side JavaScript, so a client-supplied pipeline cannot write or execute code.
+ */
+public final class AggregationPipelineValidator {
+
+    public static final int MAX_STAGES = 20;
+
+    private static final Set<String> ALLOWED_STAGES = Set.of(
+        "$match", "$group", "$bucket", "$sort", "$limit", "$project"
+    );
+
+    private static final Set<String> FORBIDDEN_OPERATORS = Set.of(
+        "$where", "$function", "$accumulator"
+    );
+
+    private AggregationPipelineValidator() {}
+
+    /**
+     * The pipeline an aggregation query runs: its filter, if any, becomes a leading
+     * {@code $match}. Find options that have no place in a pipeline (projection, sort, skip,
+     * limit) are rejected rather than ignored; the pipeline has stages for them.
+     */
+    public static List<Document> validate(MongoQuery query) {
+        List<String> findOptions = new ArrayList<>();
+        if (query.getProjection() != null && !query.getProjection().isEmpty()) {
+            findOptions.add("projection");
+        }
+        if (query.getSort() != null && !query.getSort().isEmpty()) {
+            findOptions.add("sort");
+        }
+        if (query.getSkip() != null && query.getSkip() > 0) {
+            findOptions.add("skip");
+        }
+        if (query.getLimit() != null && query.getLimit() > 0) {
+            findOptions.add("limit");
+        }
+        if (!findOptions.isEmpty()) {
+            throw new IllegalArgumentException("Aggregation queries cannot set " + String.join(", ", findOptions)
+                + "; use $project, $sort and $limit stages instead");
+        }
+
+        List<Document> stages = validate(query.getPipeline());
+        if (query.getFilter() != null && !query.getFilter().isEmpty()) {
+            rejectForbidden(query.getFilter());
+            stages.add(0, new Document("$match", new Document(query.getFilter())));
+        }
+        return stages;
+    }
+
+    public static List<Document> validate(List<Map<String, Object>> pipeline) {
+        if (pipeline.size() > MAX_STAGES) {
+            throw new IllegalArgumentException("Pipeline may contain at most " + MAX_STAGES + " stages");
+        }
+
+        List<Document> stages = new ArrayList<>(pipeline.size());
+        for (Map<String, Object> stage : pipeline) {
+            if (stage == null || stage.size() != 1) {
+                throw new IllegalArgumentException("Each pipeline stage must have exactly one operator");
+            }
+            String operator = stage.keySet().iterator().next();
+            if (!ALLOWED_STAGES.contains(operator)) {
+                throw new IllegalArgumentException("Unsupported pipeline stage: " + operator
+                    + " (allowed: $match, $group, $bucket, $sort, $limit, $project)");
+            }
+            if ("$limit".equals(operator)
+                && !(stage.get(operator) instanceof Number limit && limit.longValue() > 0)) {
+                throw new IllegalArgumentException("$limit must be a positive number");
+            }
+            rejectForbidden(stage.get(operator));
+            stages.add(new Document(stage));
+        }
+        return stages;
+    }
+
+    private static void rejectForbidden(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (FORBIDDEN_OPERATORS.contains(String.valueOf(entry.getKey()))) {
+                    throw new IllegalArgumentException("Operator not allowed in pipeline: " + entry.getKey());
+                }
+                rejectForbidden(entry.getValue());
+            }
+        } else if (value instanceof Collection<?> items) {
+            items.forEach(AggregationPipelineValidator::rejectForbidden);
+        }
+    }
+}
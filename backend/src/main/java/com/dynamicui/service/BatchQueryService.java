@@ -0,0 +1,140 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.BatchQueryRequest;
+import com.dynamicui.model.MongoQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Service
+public class BatchQueryService {
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Autowired
+    @Qualifier("mongoQueryExecutor")
+    private ExecutorService mongoQueryExecutor;
+
+    @Value("${mongo.query.batch.max-queries:100}")
+    private int maxQueries;
+
+    @Value("${mongo.query.batch.max-parallelism:8}")
+    private int maxParallelism;
+
+    @Value("${mongo.query.batch.default-deadline-ms:10000}")
+    private long defaultDeadlineMs;
+
+    @Value("${mongo.query.batch.max-deadline-ms:30000}")
+    private long maxDeadlineMs;
+
+    /**
+     * Runs the queries on the shared query executor and returns one result per query, in
+     * request order. At most {@code maxParallelism} workers pull queries from the batch, so a
+     * large batch never occupies more than that many executor threads. Each query's server-side
+     * time limit is capped at the time left to the deadline, so a query reported as timed out
+     * also stops on the server. Workers are never interrupted: an interrupt would fail every
+     * other caller sharing the query's in-flight execution.
+     */
+    public List<Map<String, Object>> executeBatch(BatchQueryRequest request) {
+        List<MongoQuery> queries = request.getQueries();
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("At least one query is required");
+        }
+        if (queries.size() > maxQueries) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxQueries + " queries");
+        }
+
+        int parallelism = Math.min(queries.size(), request.getMaxParallelism() != null && request.getMaxParallelism() > 0
+            ? Math.min(request.getMaxParallelism(), maxParallelism)
+            : maxParallelism);
+        long deadlineMs = Math.min(maxDeadlineMs, request.getDeadlineMs() != null && request.getDeadlineMs() > 0
+            ? request.getDeadlineMs()
+            : defaultDeadlineMs);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+        AtomicReferenceArray<Map<String, Object>> results = new AtomicReferenceArray<>(queries.size());
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(mongoQueryExecutor.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < queries.size() && System.nanoTime() < deadline) {
+                    results.set(index, execute(withinDeadline(queries.get(index), deadline)));
+                }
+            }));
+        }
+
+        for (Future<?> worker : workers) {
+            try {
+                worker.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Left running: its query ends at its time limit and the loop takes no new ones
+                break;
+            } catch (ExecutionException e) {
+                // execute() reports its own failures, so this only happens on executor errors
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<Map<String, Object>> ordered = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            Map<String, Object> result = results.get(i);
+            ordered.add(result != null ? result : failure("Deadline of " + deadlineMs + "ms exceeded"));
+        }
+        return ordered;
+    }
+
+    // A copy whose maxTimeMs is no later than the deadline; maxTimeMs is not part of the cache key
+    private static MongoQuery withinDeadline(MongoQuery query, long deadline) {
+        long remainingMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        MongoQuery bounded = query.copy();
+        bounded.setMaxTimeMs(query.getMaxTimeMs() != null && query.getMaxTimeMs() > 0
+            ? Math.min(query.getMaxTimeMs(), remainingMs)
+            : remainingMs);
+        return bounded;
+    }
+
+    private Map<String, Object> execute(MongoQuery query) {
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("success", true);
+            if (query.isKeysetPagination()) {
+                KeysetPagination.Page page = mongoQueryService.executeKeysetPage(query);
+                result.put("data", page.data());
+                result.put("count", page.data().size());
+                result.put("hasMore", page.continuationToken() != null);
+                result.put("continuationToken", page.continuationToken());
+            } else {
+                List<Map<String, Object>> data = mongoQueryService.executeQuery(query);
+                result.put("data", data);
+                result.put("count", data.size());
+            }
+            return result;
+        } catch (Exception e) {
+            return failure(e.getMessage());
+        }
+    }
+
+    private Map<String, Object> failure(String error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", false);
+        result.put("error", error);
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dynamicui.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which collections were recently seen to hold documents, so the blocking and the
+ * reactive query paths only probe a collection for the sample-data fallback once per TTL.
+ * Only non-empty results are remembered, so a freshly seeded collection is picked up at once.
+ */
+@Component
+public class CollectionEmptinessCache {
+
+    @Value("${mongo.query.emptiness-ttl-ms:30000}")
+    private long emptinessTtlMs;
+
+    // Collection name -> time (epoch millis) until which the collection is known to be non-empty
+    private final Map<String, Long> nonEmptyUntil = new ConcurrentHashMap<>();
+
+    public boolean isKnownNonEmpty(String collection) {
+        Long until = nonEmptyUntil.get(collection);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Records the outcome of a probe.
+     */
+    public void record(String collection, boolean empty) {
+        if (empty) {
+            nonEmptyUntil.remove(collection);
+        } else {
+            nonEmptyUntil.put(collection, System.currentTimeMillis() + emptinessTtlMs);
+        }
+    }
+
+    public void invalidate(String collection) {
+        nonEmptyUntil.remove(collection);
+    }
+
+    public void clear() {
+        nonEmptyUntil.clear();
+    }
+}
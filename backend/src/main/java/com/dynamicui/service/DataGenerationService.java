@@ -1,108 +1,157 @@
 package com.dynamicui.service;
 
 import com.dynamicui.model.Dataset;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 @Service
 public class DataGenerationService {
 
-    private final Random random = new Random();
-    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Seeded output must not depend on the clock, so generated dates count back from a fixed day
+    static final LocalDateTime SEEDED_ANCHOR = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Value("${datagen.chunk-rows:8192}")
+    private int chunkRows;
+
+    @Value("${datagen.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool generationPool;
 
     public List<Map<String, Object>> generateDataForDataset(Dataset dataset, int rowCount) {
-        List<Map<String, Object>> data = new ArrayList<>();
-        Map<String, String> columns = dataset.getColumns();
-
-        for (int i = 1; i <= rowCount; i++) {
-            Map<String, Object> row = new HashMap<>();
-            
-            for (Map.Entry<String, String> column : columns.entrySet()) {
-                String columnName = column.getKey();
-                String columnType = column.getValue();
-                
-                row.put(columnName, generateValueForType(columnType, i, columnName, dataset.getName()));
-            }
-            
-            data.add(row);
+        return generateDataForDataset(dataset, rowCount, null, 0);
+    }
+
+    /**
+     * Generates rows {@code offset + 1} to {@code offset + rowCount}. With a seed every row is
+     * a pure function of (seed, row index), so any range can be regenerated on its own and
+     * gives the same values as when it was part of a larger run.
+     */
+    public List<Map<String, Object>> generateDataForDataset(Dataset dataset, int rowCount, Long seed, int offset) {
+        GenerationPlan plan = planFor(dataset, seed);
+        List<Map<String, Object>> data = new ArrayList<>(rowCount);
+
+        for (int i = offset + 1; i <= offset + rowCount; i++) {
+            data.add(plan.row(i, randomFor(seed, i)));
         }
 
         return data;
     }
 
-    private Object generateValueForType(String type, int rowIndex, String columnName, String datasetName) {
-        switch (type.toLowerCase()) {
-            case "number":
-                if (columnName.toLowerCase().contains("id")) {
-                    return rowIndex;
-                } else if (columnName.toLowerCase().contains("price")) {
-                    return Math.round((random.nextDouble() * 1000 + 10) * 100.0) / 100.0;
-                } else if (columnName.toLowerCase().contains("age")) {
-                    return random.nextInt(70) + 18;
-                } else if (columnName.toLowerCase().contains("quantity") || columnName.toLowerCase().contains("stock")) {
-                    return random.nextInt(100) + 1;
-                } else {
-                    return random.nextInt(1000) + 1;
-                }
-
-            case "string":
-                if (columnName.toLowerCase().contains("name")) {
-                    return generateName(rowIndex);
-                } else if (columnName.toLowerCase().contains("email")) {
-                    return generateEmail(rowIndex);
-                } else if (columnName.toLowerCase().contains("category")) {
-                    return generateCategory();
-                } else if (columnName.toLowerCase().contains("status")) {
-                    return generateStatus();
-                } else if (columnName.toLowerCase().contains("title")) {
-                    return generateTitle(rowIndex);
-                } else {
-                    return "Sample " + columnName + " " + rowIndex;
-                }
-
-            case "boolean":
-                return random.nextBoolean();
-
-            case "date":
-                LocalDateTime baseDate = LocalDateTime.now().minusDays(random.nextInt(365));
-                return baseDate.format(dateFormatter);
-
-            default:
-                return "Unknown type: " + type;
+    public void writeDataForDataset(Dataset dataset, int rowCount, OutputStream outputStream) throws IOException {
+        writeDataForDataset(dataset, rowCount, null, 0, outputStream);
+    }
+
+    /**
+     * Writes the rows as a JSON array. Fixed-size chunks of rows are rendered to bytes in
+     * parallel and written in order, with a bounded number of chunks in flight, so memory
+     * stays flat while generation uses every core.
+     */
+    public void writeDataForDataset(Dataset dataset, int rowCount, Long seed, int offset,
+                                    OutputStream outputStream) throws IOException {
+        GenerationPlan plan = planFor(dataset, seed);
+        int maxInFlight = generationPool.getParallelism() * 2;
+        Deque<CompletableFuture<ChunkBuffer>> inFlight = new ArrayDeque<>();
+        // Chunk buffers are sized from one sample row so that they are allocated once and rarely grow
+        int[] bytesPerRow = {renderChunk(plan, seed, offset + 1, offset + 1, new int[] {64}).size()};
+        boolean first = true;
+
+        outputStream.write('[');
+        long last = (long) offset + rowCount;
+        for (long start = offset + 1L; start <= last; start += chunkRows) {
+            int chunkStart = (int) start;
+            int chunkEnd = (int) Math.min(start + chunkRows - 1, last);
+            inFlight.add(CompletableFuture.supplyAsync(
+                () -> renderChunk(plan, seed, chunkStart, chunkEnd, bytesPerRow), generationPool));
+            if (inFlight.size() >= maxInFlight) {
+                first = writeChunk(outputStream, inFlight.poll().join(), first);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            first = writeChunk(outputStream, inFlight.poll().join(), first);
+        }
+        outputStream.write(']');
+    }
+
+    /**
+     * Per-row random source: seeded rows get their own SplittableRandom derived from the
+     * seed and row index; unseeded rows use the calling thread's generator, which avoids
+     * contention on a shared Random.
+     */
+    static RandomGenerator randomFor(Long seed, int rowIndex) {
+        if (seed == null) {
+            return ThreadLocalRandom.current();
         }
+        return new SplittableRandom(mix(seed + rowIndex * 0x9E3779B97F4A7C15L));
     }
 
-    private String generateName(int index) {
-        String[] firstNames = {"John", "Jane", "Mike", "Sarah", "David", "Emma", "Chris", "Lisa", "Tom", "Anna"};
-        String[] lastNames = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Wilson", "Moore"};
-        
-        return firstNames[index % firstNames.length] + " " + lastNames[(index * 3) % lastNames.length];
+    GenerationPlan planFor(Dataset dataset, Long seed) {
+        return GenerationPlan.compile(dataset, seed != null ? SEEDED_ANCHOR : LocalDateTime.now());
     }
 
-    private String generateEmail(int index) {
-        String name = generateName(index).toLowerCase().replace(" ", ".");
-        String[] domains = {"email.com", "test.org", "sample.net", "demo.io"};
-        return name + "@" + domains[index % domains.length];
+    private ChunkBuffer renderChunk(GenerationPlan plan, Long seed, int startRow, int endRow, int[] bytesPerRow) {
+        int rows = endRow - startRow + 1;
+        // 1/8 headroom over the observed row size; the estimate is a hint, so racy reads are fine
+        ChunkBuffer buffer = new ChunkBuffer(rows * (bytesPerRow[0] + bytesPerRow[0] / 8));
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            generator.setRootValueSeparator(new SerializedString(","));
+            for (int i = startRow; i <= endRow; i++) {
+                plan.writeRow(generator, i, randomFor(seed, i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytesPerRow[0] = Math.max(bytesPerRow[0], buffer.size() / rows + 1);
+        return buffer;
+    }
+
+    private boolean writeChunk(OutputStream outputStream, ChunkBuffer chunk, boolean first) throws IOException {
+        if (!first) {
+            outputStream.write(',');
+        }
+        chunk.writeTo(outputStream);
+        return false;
+    }
+
+    // ByteArrayOutputStream.writeTo writes the internal array directly, without toByteArray's copy
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+        ChunkBuffer(int size) {
+            super(size);
+        }
     }
 
-    private String generateCategory() {
-        String[] categories = {"Electronics", "Clothing", "Books", "Home & Garden", "Sports", "Toys", "Food", "Beauty"};
-        return categories[random.nextInt(categories.length)];
+    @PostConstruct
+    void startPool() {
+        generationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
     }
 
-    private String generateStatus() {
-        String[] statuses = {"Active", "Inactive", "Pending", "Completed", "Draft", "Published"};
-        return statuses[random.nextInt(statuses.length)];
+    @PreDestroy
+    void shutdownPool() {
+        generationPool.shutdownNow();
     }
 
-    private String generateTitle(int index) {
-        String[] titles = {
-            "Product Title", "Sample Item", "Demo Product", "Test Article", 
-            "Example Entry", "Sample Record", "Demo Item", "Test Product"
-        };
-        return titles[index % titles.length] + " #" + index;
+    // SplitMix64 finalizer: spreads consecutive row seeds across the whole 64-bit space
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 }
@@ -0,0 +1,318 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import com.dynamicui.repository.DatasetRepository;
+import com.dynamicui.repository.UIComponentRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-cache of {@link Dataset} documents by id and by name, and of the dataset id each
+ * {@link UIComponent} is bound to. Writes through the controllers invalidate entries directly;
+ * writes from other nodes are picked up from a change stream on the datasets and ui_components
+ * collections, or, where change streams are unavailable (a standalone server) or keep failing,
+ * by polling each collection's count and latest {@code updated_at}. Cached datasets are shared
+ * instances and must not be modified; load from the repository to edit one.
+ */
+@Component
+public class DatasetCache {
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private UIComponentRepository componentRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${dataset-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dataset-cache.change-stream.enabled:true}")
+    private boolean changeStreamEnabled;
+
+    @Value("${dataset-cache.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    // Consecutive change stream failures after which the cache falls back to polling
+    @Value("${dataset-cache.change-stream.max-failures:3}")
+    private int maxStreamFailures;
+
+    private final Map<String, Dataset> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> idByName = new ConcurrentHashMap<>();
+    // Component id -> dataset id, or "" for a component bound to no dataset
+    private final Map<String, String> datasetIdByComponent = new ConcurrentHashMap<>();
+    // Bumped on every invalidation, so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread watcher;
+    private String lastPollStamp;
+    private int streamFailures;
+
+    public Optional<Dataset> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Dataset cached = byId.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadedAt = generation.get();
+        Optional<Dataset> loaded = datasetRepository.findById(id);
+        loaded.ifPresent(dataset -> put(dataset, loadedAt));
+        return loaded;
+    }
+
+    public Optional<Dataset> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        String id = idByName.get(name.toLowerCase(Locale.ROOT));
+        if (id != null) {
+            Dataset cached = byId.get(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        long loadedAt = generation.get();
+        Optional<Dataset> loaded = datasetRepository.findByNameIgnoreCase(name).stream().findFirst();
+        loaded.ifPresent(dataset -> put(dataset, loadedAt));
+        return loaded;
+    }
+
+    /**
+     * Returns the datasets with the given ids, loading all misses with one {@code $in} query.
+     */
+    public Map<String, Dataset> findAllById(Collection<String> ids) {
+        Map<String, Dataset> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Dataset cached = byId.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadedAt = generation.get();
+            for (Dataset dataset : datasetRepository.findAllById(missing)) {
+                found.put(dataset.getId(), dataset);
+                put(dataset, loadedAt);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the id of the dataset a component is bound to, empty if the component does not
+     * exist or is bound to none.
+     */
+    public Optional<String> datasetIdOfComponent(String componentId) {
+        if (componentId == null) {
+            return Optional.empty();
+        }
+        String cached = datasetIdByComponent.get(componentId);
+        if (cached != null) {
+            return cached.isEmpty() ? Optional.empty() : Optional.of(cached);
+        }
+        long loadedAt = generation.get();
+        Optional<UIComponent> loaded = componentRepository.findById(componentId);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        String datasetId = DatasetReferenceResolver.datasetId(loaded.get());
+        if (enabled && generation.get() == loadedAt) {
+            datasetIdByComponent.put(componentId, datasetId != null ? datasetId : "");
+        }
+        return Optional.ofNullable(datasetId);
+    }
+
+    /**
+     * Changes whenever any cached entry is invalidated, so callers can tell that something
+     * they derived from the cache may be out of date.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        if (id != null) {
+            byId.remove(id);
+            idByName.values().removeIf(id::equals);
+        }
+    }
+
+    public void invalidateComponent(String componentId) {
+        generation.incrementAndGet();
+        if (componentId != null) {
+            datasetIdByComponent.remove(componentId);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.clear();
+        idByName.clear();
+        datasetIdByComponent.clear();
+    }
+
+    private void put(Dataset dataset, long loadedAt) {
+        if (!enabled || generation.get() != loadedAt) {
+            return;
+        }
+        byId.put(dataset.getId(), dataset);
+        if (dataset.getName() != null) {
+            idByName.put(dataset.getName().toLowerCase(Locale.ROOT), dataset.getId());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watch, "dataset-cache-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() {
+        while (running) {
+            if (changeStreamEnabled) {
+                try {
+                    followChangeStream();
+                } catch (Exception e) {
+                    streamFailed(e);
+                }
+            }
+            if (!changeStreamEnabled) {
+                poll();
+            }
+            if (running) {
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * Handles a change stream that could not be opened or was lost: anything may have changed
+     * until it is reopened, so the cache is cleared. A server without change streams, or a
+     * stream that keeps failing, is polled from then on.
+     */
+    void streamFailed(Exception e) {
+        invalidateAll();
+        streamFailures++;
+        boolean unsupported = e instanceof MongoCommandException command
+            && command.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED;
+        if (unsupported || streamFailures >= maxStreamFailures) {
+            changeStreamEnabled = false;
+        }
+    }
+
+    boolean isChangeStreamEnabled() {
+        return changeStreamEnabled;
+    }
+
+    private void followChangeStream() {
+        String datasets = mongoTemplate.getCollectionName(Dataset.class);
+        String components = mongoTemplate.getCollectionName(UIComponent.class);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", datasets, components))))
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor()) {
+            // Writes made before the stream opened were not seen
+            invalidateAll();
+            streamFailures = 0;
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event == null) {
+                    continue;
+                }
+                BsonValue key = event.getDocumentKey() != null ? event.getDocumentKey().get("_id") : null;
+                if (key == null || event.getNamespace() == null) {
+                    // Drops, renames and invalidations carry no document
+                    invalidateAll();
+                    continue;
+                }
+                String id = key.isObjectId() ? key.asObjectId().getValue().toHexString()
+                    : key.isString() ? key.asString().getValue() : key.toString();
+                if (components.equals(event.getNamespace().getCollectionName())) {
+                    invalidateComponent(id);
+                } else {
+                    invalidate(id);
+                }
+            }
+        }
+    }
+
+    private void poll() {
+        try {
+            LocalDateTime latest = datasetRepository.findTopByOrderByUpdatedAtDesc()
+                .map(Dataset::getUpdatedAt)
+                .orElse(null);
+            LocalDateTime latestComponent = componentRepository.findTopByOrderByUpdatedAtDesc()
+                .map(UIComponent::getUpdatedAt)
+                .orElse(null);
+            String stamp = datasetRepository.count() + "|" + latest
+                + "|" + componentRepository.count() + "|" + latestComponent;
+            if (!Objects.equals(stamp, lastPollStamp)) {
+                if (lastPollStamp != null) {
+                    invalidateAll();
+                }
+                lastPollStamp = stamp;
+            }
+        } catch (Exception e) {
+            invalidateAll();
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
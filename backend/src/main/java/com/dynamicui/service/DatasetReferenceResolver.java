@@ -0,0 +1,102 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the lazy {@code UIComponent.dataset} references of a batch of components with one
+ * {@code $in} query (or none, for datasets already in the {@link DatasetCache}) instead of one
+ * lookup per component, and replaces the proxies with the loaded datasets. Call it on
+ * anything loaded from {@code ui_components} before the components are serialized, since
+ * Jackson would otherwise resolve each proxy on its own; {@link #serializationGuard()}
+ * turns a missed call into an error instead of a query per component.
+ */
+@Component
+public class DatasetReferenceResolver {
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    /**
+     * Resolves the references of every {@link UIComponent} in {@code items}; other items are
+     * ignored, so any loaded list can be passed.
+     */
+    public void resolve(Collection<?> items) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Object item : items) {
+            if (item instanceof UIComponent component && component.getDataset() instanceof LazyLoadingProxy proxy) {
+                ids.add(String.valueOf(proxy.toDBRef().getId()));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Map<String, Dataset> datasets = datasetCache.findAllById(ids);
+        for (Object item : items) {
+            if (item instanceof UIComponent component && component.getDataset() instanceof LazyLoadingProxy proxy) {
+                // A dangling reference resolves to null, as it did with eager loading
+                component.setDataset(datasets.get(String.valueOf(proxy.toDBRef().getId())));
+            }
+        }
+    }
+
+    /**
+     * The referenced dataset id, read from the reference itself so the dataset is not loaded.
+     */
+    public static String datasetId(UIComponent component) {
+        if (component.getDatasetId() != null) {
+            return component.getDatasetId();
+        }
+        Dataset dataset = component.getDataset();
+        if (dataset instanceof LazyLoadingProxy proxy) {
+            return String.valueOf(proxy.toDBRef().getId());
+        }
+        return dataset != null ? dataset.getId() : null;
+    }
+
+    /**
+     * A Jackson module that refuses to serialize an unresolved lazy reference, so a listing
+     * that skips {@link #resolve} fails instead of loading its datasets one by one.
+     */
+    public static Module serializationGuard() {
+        SimpleModule module = new SimpleModule("LazyReferenceGuard");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                if (!LazyLoadingProxy.class.isAssignableFrom(description.getBeanClass())) {
+                    return serializer;
+                }
+                return new StdSerializer<Object>(Object.class) {
+                    @Override
+                    public void serialize(Object value, JsonGenerator generator, SerializerProvider provider)
+                            throws IOException {
+                        throw JsonMappingException.from(generator, "Unresolved lazy reference to "
+                            + ((LazyLoadingProxy) value).toDBRef() + "; resolve it with DatasetReferenceResolver first");
+                    }
+                };
+            }
+        });
+        return module;
+    }
+}
@@ -0,0 +1,275 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates rows for a {@link Dataset} and bulk-loads them into a MongoDB collection, so the
+ * query path can be exercised against real data instead of the sample-data fallback. The
+ * application's own collections (those mapped by an entity) and system collections are never
+ * a target. Seeds requested over HTTP run as background jobs, one at a time, and cannot drop
+ * the collection first; only {@code DatasetSeedRunner} can.
+ */
+@Service
+public class DatasetSeedService {
+
+    @Autowired(required = false)
+    private MongoClient mongoClient;
+
+    @Autowired
+    private DataGenerationService dataGenerationService;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${datagen.seed.max-rows:100000000}")
+    private long maxRows;
+
+    @Value("${datagen.seed.batch-size:5000}")
+    private int defaultBatchSize;
+
+    @Value("${datagen.seed.writers:4}")
+    private int defaultWriters;
+
+    // Caps on what a request may ask for: each writer is a platform thread, each batch a pre-sized list
+    @Value("${datagen.seed.max-batch-size:50000}")
+    private int maxBatchSize;
+
+    @Value("${datagen.seed.max-writers:16}")
+    private int maxWriters;
+
+    @Value("${datagen.seed.max-finished-jobs:100}")
+    private int maxFinishedJobs;
+
+    // One seed at a time; further jobs queue behind it
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dataset-seed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Insertion-ordered, so the oldest finished jobs are forgotten first
+    private final Map<String, SeedJob> jobs = new LinkedHashMap<>();
+
+    /**
+     * A background seed. {@code report} is set once it has succeeded, {@code error} once it
+     * has failed.
+     */
+    public static final class SeedJob {
+        private final String id = UUID.randomUUID().toString();
+        private final String dataset;
+        private final String collection;
+        private final int rows;
+        private volatile String status = "QUEUED";
+        private volatile Map<String, Object> report;
+        private volatile String error;
+
+        SeedJob(String dataset, String collection, int rows) {
+            this.dataset = dataset;
+            this.collection = collection;
+            this.rows = rows;
+        }
+
+        public String getId() { return id; }
+        public String getDataset() { return dataset; }
+        public String getCollection() { return collection; }
+        public int getRows() { return rows; }
+        public String getStatus() { return status; }
+        public Map<String, Object> getReport() { return report; }
+        public String getError() { return error; }
+
+        boolean isFinished() {
+            return "SUCCEEDED".equals(status) || "FAILED".equals(status);
+        }
+    }
+
+    public static String defaultCollectionName(Dataset dataset) {
+        return dataset.getName().trim().toLowerCase(Locale.ROOT).replaceAll("\\W+", "_");
+    }
+
+    /**
+     * Validates the request at once and seeds in the background, without dropping the
+     * target collection first.
+     */
+    public SeedJob submit(Dataset dataset, String collectionName, int rows, Long seed,
+                          Integer batchSize, Integer writers) {
+        String target = validate(dataset, collectionName, rows);
+        SeedJob job = new SeedJob(dataset.getName(), target, rows);
+        synchronized (jobs) {
+            forgetFinishedJobs();
+            jobs.put(job.id, job);
+        }
+        jobExecutor.execute(() -> {
+            job.status = "RUNNING";
+            try {
+                job.report = seed(dataset, target, rows, seed, batchSize, writers, false);
+                job.status = "SUCCEEDED";
+            } catch (Exception e) {
+                job.error = e.getMessage();
+                job.status = "FAILED";
+            }
+        });
+        return job;
+    }
+
+    public SeedJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private void forgetFinishedJobs() {
+        long finished = jobs.values().stream().filter(SeedJob::isFinished).count();
+        Iterator<SeedJob> iterator = jobs.values().iterator();
+        while (finished >= maxFinishedJobs && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    @PreDestroy
+    void stopJobs() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Splits the rows into one contiguous range per writer. Each writer generates its range
+     * in batches and sends every batch as one unordered insertMany, so the server can apply
+     * a batch without stopping at the first failed document. Rows are keyed by their global
+     * index, so with a seed the collection has the same content whatever the writer count.
+     * The first writer to fail stops the others. The batch size and writer count are capped
+     * at their configured maximums; the report shows the values used.
+     */
+    public Map<String, Object> seed(Dataset dataset, String collectionName, int rows, Long seed,
+                                    Integer batchSize, Integer writers, boolean drop) {
+        String target = validate(dataset, collectionName, rows);
+        int batch = Math.min(Math.min(rows, maxBatchSize),
+            batchSize != null && batchSize > 0 ? batchSize : defaultBatchSize);
+        int writerCount = Math.min(Math.min(rows, maxWriters),
+            writers != null && writers > 0 ? writers : defaultWriters);
+
+        MongoCollection<Document> collection = mongoClient
+            .getDatabase(MongoQueryService.DEFAULT_DATABASE)
+            .getCollection(target);
+        if (drop) {
+            collection.drop();
+        }
+
+        GenerationPlan plan = dataGenerationService.planFor(dataset, seed);
+        InsertManyOptions options = new InsertManyOptions().ordered(false);
+        AtomicLong inserted = new AtomicLong();
+        long start = System.nanoTime();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(writerCount)) {
+            ExecutorCompletionService<Void> writersDone = new ExecutorCompletionService<>(pool);
+            List<Future<Void>> futures = new ArrayList<>(writerCount);
+            int perWriter = rows / writerCount;
+            for (int w = 0; w < writerCount; w++) {
+                int first = w * perWriter + 1;
+                int last = w == writerCount - 1 ? rows : first + perWriter - 1;
+                futures.add(writersDone.submit(() -> {
+                    List<Document> documents = new ArrayList<>(batch);
+                    for (int i = first; i <= last; i++) {
+                        documents.add(plan.fillRow(new Document(), i, DataGenerationService.randomFor(seed, i)));
+                        if (documents.size() == batch || i == last) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new InterruptedException();
+                            }
+                            collection.insertMany(documents, options);
+                            inserted.addAndGet(documents.size());
+                            documents = new ArrayList<>(batch);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            try {
+                // In completion order, so the first failure is seen while other writers still run
+                for (int w = 0; w < writerCount; w++) {
+                    writersDone.take().get();
+                }
+            } finally {
+                // No-op after success; after a failure the other writers stop at their next batch
+                futures.forEach(future -> future.cancel(true));
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Seeding " + target + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Seeding " + target + " was interrupted", e);
+        } finally {
+            mongoQueryService.invalidateCollection(target);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dataset", dataset.getName());
+        report.put("collection", target);
+        report.put("rows", inserted.get());
+        report.put("batchSize", batch);
+        report.put("writers", writerCount);
+        report.put("seed", seed);
+        report.put("elapsedMs", elapsedMs);
+        report.put("docsPerSecond", inserted.get() * 1000 / elapsedMs);
+        return report;
+    }
+
+    private String validate(Dataset dataset, String collectionName, int rows) {
+        if (mongoClient == null) {
+            throw new IllegalStateException("MongoDB is not configured");
+        }
+        if (rows <= 0 || rows > maxRows) {
+            throw new IllegalArgumentException("rows must be between 1 and " + maxRows);
+        }
+        String target = collectionName != null && !collectionName.isBlank()
+            ? collectionName.trim()
+            : defaultCollectionName(dataset);
+        if (target.startsWith("system.") || protectedCollections().contains(target)) {
+            throw new IllegalArgumentException("Collection " + target
+                + " belongs to the application and cannot be seeded; choose another collection");
+        }
+        return target;
+    }
+
+    /**
+     * The collections the application stores its own entities in (pages, datasets, ...).
+     */
+    Set<String> protectedCollections() {
+        Set<String> names = new TreeSet<>();
+        for (MongoPersistentEntity<?> entity : mongoTemplate.getConverter().getMappingContext().getPersistentEntities()) {
+            if (entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                names.add(entity.getCollection());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+
+import java.util.Map;
+
+/**
+ * The find options a {@link MongoQuery} asks for, in the form both the blocking and the
+ * reactive driver accept. Absent options take the drivers' own defaults (an empty filter,
+ * null projection, sort and hint, skip and limit 0), so either find builder can apply every
+ * option unconditionally.
+ */
+record FindSpec(Document filter, Document projection, Document sort, Document hint,
+                int skip, int limit, long maxTimeMs) {
+
+    static FindSpec of(MongoQuery query, long maxQueryTimeMs) {
+        return new FindSpec(
+            query.getFilter() != null ? new Document(query.getFilter()) : new Document(),
+            document(query.getProjection()),
+            document(query.getSort()),
+            // Set by ProjectionResolver when an index covers the whole query
+            document(query.getHint()),
+            positive(query.getSkip()),
+            positive(query.getLimit()),
+            maxTimeMs(query, maxQueryTimeMs));
+    }
+
+    /**
+     * The server-side time limit for a query: what it asks for, capped by the configured
+     * maximum, which is also the default.
+     */
+    static long maxTimeMs(MongoQuery query, long maxQueryTimeMs) {
+        Long requested = query.getMaxTimeMs();
+        return requested != null && requested > 0 ? Math.min(requested, maxQueryTimeMs) : maxQueryTimeMs;
+    }
+
+    private static Document document(Map<String, Object> map) {
+        return map != null && !map.isEmpty() ? new Document(map) : null;
+    }
+
+    private static int positive(Integer value) {
+        return value != null && value > 0 ? value : 0;
+    }
+}
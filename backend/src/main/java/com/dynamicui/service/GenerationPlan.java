@@ -0,0 +1,205 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A dataset's columns compiled into one generator per column. Column names and types are
+ * inspected once when the plan is built, and every string that does not depend on the row
+ * index is precomputed, so producing a cell is an array lookup or a random draw.
+ */
+final class GenerationPlan {
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Mike", "Sarah", "David", "Emma", "Chris", "Lisa", "Tom", "Anna"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Wilson", "Moore"};
+    private static final String[] DOMAINS = {"email.com", "test.org", "sample.net", "demo.io"};
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Books", "Home & Garden", "Sports", "Toys", "Food", "Beauty"};
+    private static final String[] STATUSES = {"Active", "Inactive", "Pending", "Completed", "Draft", "Published"};
+    private static final String[] TITLES = {
+        "Product Title", "Sample Item", "Demo Product", "Test Article",
+        "Example Entry", "Sample Record", "Demo Item", "Test Product"
+    };
+
+    // A name depends only on index % 10 and an email only on index % 20, so both are tabulated
+    private static final String[] NAMES = new String[FIRST_NAMES.length];
+    private static final String[] EMAILS = new String[20];
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            NAMES[i] = FIRST_NAMES[i] + " " + LAST_NAMES[(i * 3) % LAST_NAMES.length];
+        }
+        for (int i = 0; i < EMAILS.length; i++) {
+            EMAILS[i] = NAMES[i % NAMES.length].toLowerCase(Locale.ROOT).replace(" ", ".")
+                + "@" + DOMAINS[i % DOMAINS.length];
+        }
+    }
+
+    private static final int DATE_RANGE_DAYS = 365;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String[] columnNames;
+    private final SerializedString[] fieldNames;
+    private final ColumnGenerator[] generators;
+
+    private GenerationPlan(String[] columnNames, ColumnGenerator[] generators) {
+        this.columnNames = columnNames;
+        this.generators = generators;
+        this.fieldNames = new SerializedString[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            fieldNames[i] = new SerializedString(columnNames[i]);
+        }
+    }
+
+    /**
+     * @param anchor the time generated dates count back from
+     */
+    static GenerationPlan compile(Dataset dataset, LocalDateTime anchor) {
+        Map<String, String> columns = dataset.getColumns() != null ? dataset.getColumns() : Map.of();
+        String[] names = new String[columns.size()];
+        ColumnGenerator[] generators = new ColumnGenerator[columns.size()];
+        String[] dates = null;
+
+        int i = 0;
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            names[i] = column.getKey();
+            String type = column.getValue() == null ? "null" : column.getValue().toLowerCase(Locale.ROOT);
+            if (type.equals("date") && dates == null) {
+                dates = new String[DATE_RANGE_DAYS];
+                for (int day = 0; day < DATE_RANGE_DAYS; day++) {
+                    dates[day] = anchor.minusDays(day).format(DATE_FORMATTER);
+                }
+            }
+            generators[i] = compileColumn(column.getKey(), column.getValue(), type, dates);
+            i++;
+        }
+        return new GenerationPlan(names, generators);
+    }
+
+    private static ColumnGenerator compileColumn(String columnName, String rawType, String type, String[] dates) {
+        String name = columnName.toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "number":
+                if (name.contains("id")) {
+                    return new IntColumn((row, random) -> row);
+                } else if (name.contains("price")) {
+                    return new PriceColumn();
+                } else if (name.contains("age")) {
+                    return new IntColumn((row, random) -> random.nextInt(70) + 18);
+                } else if (name.contains("quantity") || name.contains("stock")) {
+                    return new IntColumn((row, random) -> random.nextInt(100) + 1);
+                }
+                return new IntColumn((row, random) -> random.nextInt(1000) + 1);
+
+            case "string":
+                if (name.contains("name")) {
+                    return (row, random) -> NAMES[Math.floorMod(row, NAMES.length)];
+                } else if (name.contains("email")) {
+                    return (row, random) -> EMAILS[Math.floorMod(row, EMAILS.length)];
+                } else if (name.contains("category")) {
+                    return (row, random) -> CATEGORIES[random.nextInt(CATEGORIES.length)];
+                } else if (name.contains("status")) {
+                    return (row, random) -> STATUSES[random.nextInt(STATUSES.length)];
+                } else if (name.contains("title")) {
+                    return (row, random) -> TITLES[Math.floorMod(row, TITLES.length)] + " #" + row;
+                }
+                String prefix = "Sample " + columnName + " ";
+                return (row, random) -> prefix + row;
+
+            case "boolean":
+                return new BooleanColumn();
+
+            case "date":
+                return (row, random) -> dates[random.nextInt(DATE_RANGE_DAYS)];
+
+            default:
+                String unknown = "Unknown type: " + rawType;
+                return (row, random) -> unknown;
+        }
+    }
+
+    Map<String, Object> row(int rowIndex, RandomGenerator random) {
+        return fillRow(new LinkedHashMap<>(columnNames.length * 2), rowIndex, random);
+    }
+
+    <M extends Map<String, Object>> M fillRow(M row, int rowIndex, RandomGenerator random) {
+        for (int i = 0; i < columnNames.length; i++) {
+            row.put(columnNames[i], generators[i].generate(rowIndex, random));
+        }
+        return row;
+    }
+
+    /**
+     * Writes one row as a JSON object without materialising a map or boxing numbers.
+     */
+    void writeRow(JsonGenerator generator, int rowIndex, RandomGenerator random) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < generators.length; i++) {
+            generator.writeFieldName(fieldNames[i]);
+            generators[i].write(generator, rowIndex, random);
+        }
+        generator.writeEndObject();
+    }
+
+    @FunctionalInterface
+    interface ColumnGenerator {
+        Object generate(int rowIndex, RandomGenerator random);
+
+        default void write(JsonGenerator generator, int rowIndex, RandomGenerator random) throws IOException {
+            generator.writeString((String) generate(rowIndex, random));
+        }
+    }
+
+    @FunctionalInterface
+    interface IntValue {
+        int next(int rowIndex, RandomGenerator random);
+    }
+
+    private record IntColumn(IntValue value) implements ColumnGenerator {
+        @Override
+        public Object generate(int rowIndex, RandomGenerator random) {
+            return value.next(rowIndex, random);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, int rowIndex, RandomGenerator random) throws IOException {
+            generator.writeNumber(value.next(rowIndex, random));
+        }
+    }
+
+    private static final class PriceColumn implements ColumnGenerator {
+        private static double next(RandomGenerator random) {
+            return Math.round((random.nextDouble() * 1000 + 10) * 100.0) / 100.0;
+        }
+
+        @Override
+        public Object generate(int rowIndex, RandomGenerator random) {
+            return next(random);
+        }
+
+        @Override
+        public void write(JsonGenerator generator, int rowIndex, RandomGenerator random) throws IOException {
+            generator.writeNumber(next(random));
+        }
+    }
+
+    private static final class BooleanColumn implements ColumnGenerator {
+        @Override
+        public Object generate(int rowIndex, RandomGenerator random) {
+            return random.nextBoolean();
+        }
+
+        @Override
+        public void write(JsonGenerator generator, int rowIndex, RandomGenerator random) throws IOException {
+            generator.writeBoolean(random.nextBoolean());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.dynamicui.service;
+
+import org.bson.Document;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only {@link Document}. Cached query results are shared by every caller, so their
+ * rows are frozen, nested documents and arrays included, instead of being copied per hit.
+ */
+final class ImmutableDocument extends Document {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private ImmutableDocument(Map<String, Object> map) {
+        super(map);
+    }
+
+    /**
+     * Returns a deeply read-only copy of a result row; documents stay documents.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> freeze(Map<String, Object> row) {
+        return (Map<String, Object>) freezeValue(row);
+    }
+
+    private static Object freezeValue(Object value) {
+        if (value instanceof ImmutableDocument) {
+            return value;
+        } else if (value instanceof Document document) {
+            return new ImmutableDocument(freezeEntries(document));
+        } else if (value instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap(freezeEntries(map));
+        } else if (value instanceof Collection<?> items) {
+            List<Object> frozen = new ArrayList<>(items.size());
+            items.forEach(item -> frozen.add(freezeValue(item)));
+            return Collections.unmodifiableList(frozen);
+        }
+        return value;
+    }
+
+    private static Map<String, Object> freezeEntries(Map<?, ?> map) {
+        Map<String, Object> frozen = new LinkedHashMap<>();
+        map.forEach((key, value) -> frozen.put(String.valueOf(key), freezeValue(value)));
+        return frozen;
+    }
+
+    @Override
+    public Document append(String key, Object value) {
+        throw new UnsupportedOperationException("Cached query results are read-only");
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException("Cached query results are read-only");
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw new UnsupportedOperationException("Cached query results are read-only");
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        throw new UnsupportedOperationException("Cached query results are read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Cached query results are read-only");
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(super.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return Collections.unmodifiableCollection(super.values());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableSet(super.entrySet());
+    }
+}
@@ -0,0 +1,397 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the shape of every query that reaches MongoDB (which fields are matched by
+ * equality, which by range, the sort and the projection), explains a sample of each
+ * shape and recommends compound indexes ordered by the equality-sort-range rule.
+ */
+@Service
+public class IndexAdvisorService {
+
+    private static final Set<String> EQUALITY_OPERATORS = Set.of("$eq", "$in");
+
+    @Autowired(required = false)
+    private MongoClient mongoClient;
+
+    @Autowired
+    private ProjectionResolver projectionResolver;
+
+    @Value("${mongo.index-advisor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.index-advisor.max-shapes:500}")
+    private int maxShapes;
+
+    @Value("${mongo.index-advisor.explain-interval-ms:300000}")
+    private long explainIntervalMs;
+
+    @Value("${mongo.index-advisor.max-explains-per-request:25}")
+    private int maxExplainsPerRequest;
+
+    @Value("${mongo.index-advisor.auto-create:false}")
+    private boolean autoCreate;
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    public void record(MongoQuery query, long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        QueryShape shape = QueryShape.of(query);
+        ShapeStats stats = shapes.get(shape.key());
+        if (stats == null) {
+            if (shapes.size() >= maxShapes) {
+                return;
+            }
+            stats = shapes.computeIfAbsent(shape.key(), key -> new ShapeStats(shape, query));
+        }
+        stats.count.incrementAndGet();
+        stats.totalNanos.addAndGet(elapsedNanos);
+    }
+
+    /**
+     * Explains up to {@code limit} (capped by mongo.index-advisor.max-explains-per-request)
+     * of the most expensive shapes whose plan is unknown or older than the explain interval.
+     *
+     * @return the number of shapes explained
+     */
+    public int explainStale(int limit) {
+        int budget = Math.min(limit, maxExplainsPerRequest);
+        int explained = 0;
+        for (ShapeStats stats : rankedShapes()) {
+            if (explained >= budget) {
+                break;
+            }
+            if (explainIfStale(stats)) {
+                explained++;
+            }
+        }
+        return explained;
+    }
+
+    /**
+     * Reports per-collection collection-scan ratios and one recommendation per index from
+     * the plans explained so far; never runs an explain itself.
+     */
+    public Map<String, Object> getReport() {
+        List<ShapeStats> ranked = rankedShapes();
+
+        Map<String, long[]> scanCounts = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> recommendations = new LinkedHashMap<>();
+        for (ShapeStats stats : ranked) {
+            long count = stats.count.get();
+            long[] counts = scanCounts.computeIfAbsent(stats.shape.collection(), c -> new long[2]);
+            counts[0] += count;
+            if (Boolean.TRUE.equals(stats.collScan)) {
+                counts[1] += count;
+            }
+
+            Document keys = stats.shape.recommendedIndex();
+            if (keys.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> recommendation = recommendations.computeIfAbsent(
+                stats.shape.collection() + keys.toJson(), k -> newRecommendation(stats.shape.collection(), keys));
+            recommendation.merge("queries", count, (a, b) -> (Long) a + (Long) b);
+            recommendation.merge("totalMillis", stats.totalNanos.get() / 1_000_000, (a, b) -> (Long) a + (Long) b);
+            if (Boolean.TRUE.equals(stats.collScan)) {
+                recommendation.put("collectionScan", true);
+            }
+        }
+
+        Map<String, Object> collections = new LinkedHashMap<>();
+        scanCounts.forEach((collection, counts) -> collections.put(collection, Map.of(
+            "queries", counts[0],
+            "collectionScanQueries", counts[1],
+            "collectionScanRatio", counts[0] == 0 ? 0.0 : (double) counts[1] / counts[0]
+        )));
+
+        List<Map<String, Object>> advice = new ArrayList<>(recommendations.values());
+        advice.removeIf(recommendation -> Boolean.TRUE.equals(recommendation.get("exists")));
+        advice.sort(Comparator.comparingLong((Map<String, Object> r) -> (Long) r.get("totalMillis")).reversed());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("autoCreate", autoCreate);
+        report.put("shapes", shapes.size());
+        report.put("unexplainedShapes", ranked.stream().filter(stats -> stats.explainedAt == 0).count());
+        report.put("collections", collections);
+        report.put("recommendations", advice);
+        return report;
+    }
+
+    /**
+     * Creates every recommended index that a collection-scanning shape would use. Only runs
+     * when mongo.index-advisor.auto-create is enabled.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> applyRecommendations() {
+        if (!autoCreate) {
+            throw new IllegalStateException("Index creation is disabled (mongo.index-advisor.auto-create=false)");
+        }
+        if (mongoClient == null) {
+            throw new IllegalStateException("MongoDB is not configured");
+        }
+
+        explainStale(maxExplainsPerRequest);
+        List<Map<String, Object>> created = new ArrayList<>();
+        for (Map<String, Object> recommendation : (List<Map<String, Object>>) getReport().get("recommendations")) {
+            if (!Boolean.TRUE.equals(recommendation.get("collectionScan"))) {
+                continue;
+            }
+            String collection = (String) recommendation.get("collection");
+            Document keys = new Document((Map<String, Object>) recommendation.get("keys"));
+            String name = database().getCollection(collection).createIndex(keys, new IndexOptions());
+            created.add(Map.of("collection", collection, "keys", keys, "name", name));
+            projectionResolver.invalidateIndexes(collection);
+        }
+        // Plans change once the indexes exist
+        shapes.values().forEach(stats -> stats.explainedAt = 0);
+        return created;
+    }
+
+    private Map<String, Object> newRecommendation(String collection, Document keys) {
+        Map<String, Object> recommendation = new LinkedHashMap<>();
+        recommendation.put("collection", collection);
+        recommendation.put("keys", keys);
+        recommendation.put("queries", 0L);
+        recommendation.put("totalMillis", 0L);
+        recommendation.put("collectionScan", false);
+        recommendation.put("exists", indexExists(collection, keys));
+        return recommendation;
+    }
+
+    private List<ShapeStats> rankedShapes() {
+        List<ShapeStats> ranked = new ArrayList<>(shapes.values());
+        ranked.sort(Comparator.comparingLong((ShapeStats stats) -> stats.totalNanos.get()).reversed());
+        return ranked;
+    }
+
+    private boolean explainIfStale(ShapeStats stats) {
+        if (mongoClient == null || System.currentTimeMillis() - stats.explainedAt < explainIntervalMs) {
+            return false;
+        }
+        try {
+            Document explain = database().runCommand(new Document("explain", explainTarget(stats))
+                .append("verbosity", "queryPlanner"));
+            stats.collScan = containsStage(explain, "COLLSCAN");
+        } catch (Exception e) {
+            stats.collScan = null;
+        }
+        stats.explainedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    private Document explainTarget(ShapeStats stats) {
+        MongoQuery query = stats.sample;
+        if (query.isAggregation()) {
+            return new Document("aggregate", query.getCollection())
+                .append("pipeline", AggregationPipelineValidator.validate(query))
+                .append("cursor", new Document());
+        }
+        Document find = new Document("find", query.getCollection());
+        if (query.getFilter() != null) {
+            find.append("filter", new Document(query.getFilter()));
+        }
+        if (query.getSort() != null) {
+            find.append("sort", new Document(query.getSort()));
+        }
+        if (query.getProjection() != null) {
+            find.append("projection", new Document(query.getProjection()));
+        }
+        return find;
+    }
+
+    private boolean indexExists(String collection, Document keys) {
+        if (mongoClient == null) {
+            return false;
+        }
+        try {
+            for (Document index : database().getCollection(collection).listIndexes()) {
+                Document existing = index.get("key", Document.class);
+                if (existing != null && isPrefix(keys, existing)) {
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            // Treat an unreadable index list as "no index" and keep recommending
+        }
+        return false;
+    }
+
+    private boolean isPrefix(Document keys, Document existing) {
+        List<Map.Entry<String, Object>> wanted = new ArrayList<>(keys.entrySet());
+        List<Map.Entry<String, Object>> have = new ArrayList<>(existing.entrySet());
+        if (wanted.size() > have.size()) {
+            return false;
+        }
+        for (int i = 0; i < wanted.size(); i++) {
+            Object wantedDirection = wanted.get(i).getValue();
+            Object haveDirection = have.get(i).getValue();
+            boolean sameDirection = wantedDirection instanceof Number a && haveDirection instanceof Number b
+                ? Integer.signum(a.intValue()) == Integer.signum(b.intValue())
+                : String.valueOf(wantedDirection).equals(String.valueOf(haveDirection));
+            if (!wanted.get(i).getKey().equals(have.get(i).getKey()) || !sameDirection) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Map<?, ?> map) {
+            if (stage.equals(map.get("stage"))) {
+                return true;
+            }
+            return map.values().stream().anyMatch(value -> containsStage(value, stage));
+        } else if (node instanceof Collection<?> items) {
+            return items.stream().anyMatch(item -> containsStage(item, stage));
+        }
+        return false;
+    }
+
+    private MongoDatabase database() {
+        return mongoClient.getDatabase(MongoQueryService.DEFAULT_DATABASE);
+    }
+
+    private static class ShapeStats {
+        private final QueryShape shape;
+        private final MongoQuery sample;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private volatile Boolean collScan;
+        private volatile long explainedAt;
+
+        ShapeStats(QueryShape shape, MongoQuery sample) {
+            this.shape = shape;
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * The part of a query that decides which index can serve it: field names and how they
+     * are used, without the values.
+     */
+    record QueryShape(String collection, Set<String> equality, Set<String> range,
+                      Map<String, Integer> sort, Set<String> projection) {
+
+        static QueryShape of(MongoQuery query) {
+            Set<String> equality = new TreeSet<>();
+            Set<String> range = new TreeSet<>();
+            Map<String, Integer> sort = new LinkedHashMap<>();
+            Map<String, Object> filter = query.getFilter();
+            Map<String, Object> sortSpec = query.getSort();
+
+            if (query.isAggregation()) {
+                // Only a leading $match and the $sort right after it can use an index
+                for (Map<String, Object> stage : query.getPipeline()) {
+                    if (filter == null && sortSpec == null && stage.get("$match") instanceof Map<?, ?> match) {
+                        filter = castMap(match);
+                    } else if (sortSpec == null && stage.get("$sort") instanceof Map<?, ?> stageSort) {
+                        sortSpec = castMap(stageSort);
+                    } else {
+                        break;
+                    }
+                }
+            }
+
+            collectFilterFields(filter, equality, range);
+            if (sortSpec != null) {
+                sortSpec.forEach((field, direction) -> sort.put(field, KeysetPagination.direction(direction)));
+            }
+            range.removeAll(equality);
+            Set<String> projection = query.getProjection() != null
+                ? new TreeSet<>(query.getProjection().keySet())
+                : Set.of();
+            return new QueryShape(query.getCollection(), equality, range, sort, projection);
+        }
+
+        String key() {
+            return collection + "|eq=" + equality + "|range=" + range + "|sort=" + sort + "|proj=" + projection;
+        }
+
+        /**
+         * Equality fields first, then the sort, then range fields, skipping duplicates and
+         * returning an empty document when _id alone already serves the query.
+         */
+        Document recommendedIndex() {
+            Set<String> fields = new LinkedHashSet<>();
+            Document keys = new Document();
+            for (String field : equality) {
+                if (fields.add(field)) {
+                    keys.append(field, 1);
+                }
+            }
+            sort.forEach((field, direction) -> {
+                if (fields.add(field)) {
+                    keys.append(field, direction);
+                }
+            });
+            for (String field : range) {
+                if (fields.add(field)) {
+                    keys.append(field, 1);
+                }
+            }
+            if (keys.isEmpty() || (keys.size() == 1 && keys.containsKey("_id"))) {
+                return new Document();
+            }
+            return keys;
+        }
+
+        private static void collectFilterFields(Map<String, Object> filter, Set<String> equality, Set<String> range) {
+            if (filter == null) {
+                return;
+            }
+            filter.forEach((field, value) -> {
+                if ("$and".equals(field) && value instanceof Collection<?> clauses) {
+                    clauses.forEach(clause -> {
+                        if (clause instanceof Map<?, ?> map) {
+                            collectFilterFields(castMap(map), equality, range);
+                        }
+                    });
+                } else if (field.startsWith("$")) {
+                    // $or/$nor branches need their own indexes; treat their fields as range
+                    if (value instanceof Collection<?> clauses) {
+                        clauses.forEach(clause -> {
+                            if (clause instanceof Map<?, ?> map) {
+                                collectFilterFields(castMap(map), range, range);
+                            }
+                        });
+                    }
+                } else if (value instanceof Map<?, ?> operators
+                    && operators.keySet().stream().allMatch(key -> String.valueOf(key).startsWith("$"))) {
+                    boolean equalityOnly = operators.keySet().stream().allMatch(EQUALITY_OPERATORS::contains);
+                    (equalityOnly ? equality : range).add(field);
+                } else {
+                    equality.add(field);
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object> castMap(Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+    }
+}
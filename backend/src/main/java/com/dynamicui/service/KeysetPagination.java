@@ -0,0 +1,293 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonTimestamp;
+import org.bson.BsonUndefined;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.MaxKey;
+import org.bson.types.MinKey;
+import org.bson.types.ObjectId;
+import org.bson.types.Symbol;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (seek) pagination for {@link MongoQuery}. The requested sort is extended with
+ * {@code _id} as a unique tie-breaker, and a page ends with an opaque continuation token
+ * holding the sort values of its last document. The next page starts with a range
+ * predicate on those values instead of skipping, so page N costs the same as page 1 when
+ * an index covers the sort.
+ *
+ * The range predicate follows MongoDB's sort order across types, not just within one: a
+ * missing field sorts as null, below every number, string and date, so "after null" means
+ * "any non-null value" and, descending, "before 5" includes the nulls. Array-valued sort
+ * fields (which sort by their smallest or largest element) are not supported. The token also
+ * carries the sort directions and a hash of the collection and filter, and is rejected for any
+ * other query.
+ */
+public final class KeysetPagination {
+
+    private static final JsonWriterSettings TOKEN_JSON = JsonWriterSettings.builder()
+        .outputMode(JsonMode.EXTENDED)
+        .build();
+
+    // $type aliases in BSON comparison order, lowest first; one entry per group that compares
+    // as equal-typed. Null is matched with {field: null} instead, which also matches missing.
+    private static final List<List<String>> TYPE_ORDER = List.of(
+        List.of("minKey"),
+        List.of("null", "undefined"),
+        List.of("double", "int", "long", "decimal"),
+        List.of("string", "symbol"),
+        List.of("object"),
+        List.of("array"),
+        List.of("binData"),
+        List.of("objectId"),
+        List.of("bool"),
+        List.of("date"),
+        List.of("timestamp"),
+        List.of("regex"),
+        List.of("maxKey"));
+    private static final int NULL_RANK = 1;
+
+    private KeysetPagination() {}
+
+    public record Page(List<Map<String, Object>> data, String continuationToken) {}
+
+    public static Document sort(MongoQuery query) {
+        Document sort = new Document();
+        if (query.getSort() != null) {
+            query.getSort().forEach((field, direction) -> {
+                if (!"_id".equals(field)) {
+                    sort.append(field, direction(direction));
+                }
+            });
+        }
+        // Tie-break on _id in the direction of the last requested key so the order is total
+        Object idDirection = query.getSort() != null && query.getSort().containsKey("_id")
+            ? direction(query.getSort().get("_id"))
+            : sort.values().stream().reduce((first, second) -> second).orElse(1);
+        sort.append("_id", idDirection);
+        return sort;
+    }
+
+    /**
+     * Identifies the result set a token belongs to: the collection and the normalized filter.
+     */
+    public static String scope(MongoQuery query) {
+        String key = query.getCollection() + "|" + MongoQueryKey.filterKey(query.getFilter());
+        return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the "after the last document of the previous page" predicate, or null for the
+     * first page.
+     */
+    public static Document afterFilter(Document sort, String continuationToken, String scope) {
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return null;
+        }
+
+        List<?> values = decode(sort, continuationToken, scope);
+        List<String> fields = new ArrayList<>(sort.keySet());
+        List<Document> branches = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Document after = after(fields.get(i), values.get(i), (Integer) sort.get(fields.get(i)));
+            if (after == null) {
+                // Nothing sorts past this value in this direction
+                continue;
+            }
+            Document branch = new Document();
+            for (int j = 0; j < i; j++) {
+                branch.append(fields.get(j), values.get(j));
+            }
+            after.forEach(branch::append);
+            branches.add(branch);
+        }
+        // An empty $or is invalid; a _id that cannot exist matches nothing
+        return branches.isEmpty() ? new Document("_id", new Document("$in", List.of())) : new Document("$or", branches);
+    }
+
+    // The condition for values of one field that sort after (or, descending, before) the value
+    private static Document after(String field, Object value, int direction) {
+        int rank = rank(value);
+        List<Document> options = new ArrayList<>();
+        if (rank != NULL_RANK) {
+            // Comparison operators only match values of the same type group
+            options.add(new Document(field, new Document(direction < 0 ? "$lt" : "$gt", value)));
+        }
+        if (rank >= 0) {
+            List<String> types = new ArrayList<>();
+            List<List<String>> following = direction < 0
+                ? TYPE_ORDER.subList(0, rank)
+                : TYPE_ORDER.subList(rank + 1, TYPE_ORDER.size());
+            following.forEach(types::addAll);
+            if (direction < 0 && rank > NULL_RANK) {
+                options.add(new Document(field, null));
+                types.removeAll(TYPE_ORDER.get(NULL_RANK));
+            }
+            if (!types.isEmpty()) {
+                options.add(new Document(field, new Document("$type", types)));
+            }
+        }
+        if (options.isEmpty()) {
+            return null;
+        }
+        return options.size() == 1 ? options.get(0) : new Document("$or", options);
+    }
+
+    // Position of a decoded token value in TYPE_ORDER, or -1 for types not ranked there
+    private static int rank(Object value) {
+        if (value == null || value instanceof BsonUndefined) {
+            return NULL_RANK;
+        } else if (value instanceof MinKey) {
+            return 0;
+        } else if (value instanceof Number || value instanceof Decimal128) {
+            return 2;
+        } else if (value instanceof String || value instanceof Symbol) {
+            return 3;
+        } else if (value instanceof Map<?, ?>) {
+            return 4;
+        } else if (value instanceof List<?>) {
+            return 5;
+        } else if (value instanceof Binary) {
+            return 6;
+        } else if (value instanceof ObjectId) {
+            return 7;
+        } else if (value instanceof Boolean) {
+            return 8;
+        } else if (value instanceof Date) {
+            return 9;
+        } else if (value instanceof BsonTimestamp) {
+            return 10;
+        } else if (value instanceof BsonRegularExpression) {
+            return 11;
+        } else if (value instanceof MaxKey) {
+            return 12;
+        }
+        return -1;
+    }
+
+    /**
+     * Makes sure the projection returns the sort fields, which the next token is built from:
+     * they are added to an inclusion projection and any exclusion covering them is dropped.
+     */
+    public static Document projection(Map<String, Object> projection, Document sort) {
+        Document result = new Document(projection);
+        boolean inclusion = projection.entrySet().stream()
+            .filter(entry -> !"_id".equals(entry.getKey()))
+            .anyMatch(entry -> isTruthy(entry.getValue()));
+        for (String field : sort.keySet()) {
+            if ("_id".equals(field)) {
+                continue;
+            }
+            List<String> overlapping = result.keySet().stream()
+                .filter(key -> !"_id".equals(key) && overlaps(key, field))
+                .toList();
+            if (inclusion) {
+                boolean covered = overlapping.stream()
+                    .anyMatch(key -> (key.equals(field) || field.startsWith(key + ".")) && isTruthy(result.get(key)));
+                if (!covered) {
+                    // Including both a path and its children is a path collision
+                    overlapping.forEach(result::remove);
+                    result.put(field, 1);
+                }
+            } else {
+                overlapping.forEach(result::remove);
+            }
+        }
+        // _id is the tie-breaker, so it cannot be excluded either
+        result.remove("_id");
+        return result;
+    }
+
+    private static boolean overlaps(String path, String other) {
+        return path.equals(other) || path.startsWith(other + ".") || other.startsWith(path + ".");
+    }
+
+    /**
+     * Splits a result fetched with one extra row into a page and the token for the next one.
+     */
+    public static Page page(List<Map<String, Object>> rows, int pageSize, Document sort, String scope) {
+        if (rows.size() <= pageSize) {
+            return new Page(rows, null);
+        }
+        List<Map<String, Object>> data = rows.subList(0, pageSize);
+        return new Page(data, encode(sort, data.get(pageSize - 1), scope));
+    }
+
+    static String encode(Document sort, Map<String, Object> lastRow, String scope) {
+        List<Object> values = new ArrayList<>();
+        for (String field : sort.keySet()) {
+            values.add(valueAt(lastRow, field));
+        }
+        String json = new Document("k", new ArrayList<>(sort.keySet()))
+            .append("d", new ArrayList<>(sort.values()))
+            .append("v", values)
+            .append("q", scope)
+            .toJson(TOKEN_JSON);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<?> decode(Document sort, String continuationToken, String scope) {
+        Document token;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+            token = Document.parse(json);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+        List<?> keys = token.get("k", List.class);
+        List<?> directions = token.get("d", List.class);
+        List<?> values = token.get("v", List.class);
+        // The range predicate depends on each key's direction, not just on the keys
+        if (keys == null || values == null || keys.size() != values.size()
+                || !keys.equals(new ArrayList<>(sort.keySet()))
+                || !new ArrayList<>(sort.values()).equals(directions)) {
+            throw new IllegalArgumentException("Continuation token does not match the query sort");
+        }
+        if (!scope.equals(token.getString("q"))) {
+            throw new IllegalArgumentException("Continuation token was issued for a different collection or filter");
+        }
+        return values;
+    }
+
+    private static Object valueAt(Map<String, Object> row, String path) {
+        Object current = row;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+
+    /**
+     * Reads a sort direction given as a number or as "asc"/"desc"/"ascending"/"descending".
+     */
+    static int direction(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue() < 0 ? -1 : 1;
+        }
+        String text = String.valueOf(value).trim();
+        return text.equalsIgnoreCase("desc") || text.equalsIgnoreCase("descending") || text.equals("-1") ? -1 : 1;
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue() != 0;
+        }
+        return !Boolean.FALSE.equals(value);
+    }
+}
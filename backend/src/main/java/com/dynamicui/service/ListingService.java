@@ -0,0 +1,189 @@
+package com.dynamicui.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Bounded listings of repository documents: paged, capped, or streamed from a cursor. Every
+ * mode accepts a filter and an optional set of fields, which is applied as a MongoDB
+ * projection so unrequested fields are not read at all.
+ */
+@Service
+public class ListingService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DatasetReferenceResolver datasetReferenceResolver;
+
+    @Value("${listing.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${listing.max-unpaged-results:1000}")
+    private int maxUnpagedResults;
+
+    @Value("${listing.stream.max-results:1000000}")
+    private int maxStreamResults;
+
+    @Value("${listing.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    private final Map<Class<?>, TypeFields> typeFields = new ConcurrentHashMap<>();
+
+    public record Capped(List<?> items, boolean truncated, int limit) {}
+
+    public org.springframework.data.domain.Page<?> page(Class<?> type, Criteria criteria, int page, Integer size,
+                                                       Sort sort, Set<String> fields) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0),
+            Math.min(size != null && size > 0 ? size : 50, maxPageSize), sort);
+        Selection selection = selection(type, fields);
+        Query query = query(criteria, selection).with(pageable);
+        List<?> items = select(load(query, type), selection);
+        long total = mongoTemplate.count(Query.query(criteria), type);
+        return new PageImpl<>(items, pageable, total);
+    }
+
+    /**
+     * An unpaged listing, cut off at {@code listing.max-unpaged-results}.
+     */
+    public Capped list(Class<?> type, Criteria criteria, Sort sort, Set<String> fields) {
+        Selection selection = selection(type, fields);
+        Query query = query(criteria, selection).with(sort).limit(maxUnpagedResults + 1);
+        List<?> items = load(query, type);
+        boolean truncated = items.size() > maxUnpagedResults;
+        return new Capped(select(truncated ? items.subList(0, maxUnpagedResults) : items, selection),
+            truncated, maxUnpagedResults);
+    }
+
+    /**
+     * Hands documents to {@code consumer} one at a time while the cursor is read in batches.
+     * References are resolved per batch, so memory stays bounded by the batch size.
+     *
+     * @return the number of documents streamed
+     */
+    public long stream(Class<?> type, Criteria criteria, Sort sort, Set<String> fields, Consumer<Object> consumer) {
+        Selection selection = selection(type, fields);
+        Query query = query(criteria, selection).with(sort).limit(maxStreamResults).cursorBatchSize(streamBatchSize);
+        long count = 0;
+        List<Object> batch = new ArrayList<>(streamBatchSize);
+        try (Stream<?> documents = mongoTemplate.stream(query, type)) {
+            Iterator<?> cursor = documents.iterator();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == streamBatchSize || !cursor.hasNext()) {
+                    datasetReferenceResolver.resolve(batch);
+                    for (Object document : batch) {
+                        consumer.accept(selection != null ? selection.select(document) : document);
+                    }
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<?> load(Query query, Class<?> type) {
+        List<?> items = mongoTemplate.find(query, type);
+        datasetReferenceResolver.resolve(items);
+        return items;
+    }
+
+    private Query query(Criteria criteria, Selection selection) {
+        Query query = Query.query(criteria);
+        if (selection != null) {
+            query.fields().include(selection.storedFields().toArray(String[]::new));
+        }
+        return query;
+    }
+
+    private List<?> select(List<?> items, Selection selection) {
+        if (selection == null) {
+            return items;
+        }
+        return items.stream().map(selection::select).toList();
+    }
+
+    /**
+     * The requested fields resolved once per request: the mapped property names for the
+     * projection and the JSON properties to copy from each document. Matching ignores case
+     * because Jackson names getXPosition "xposition" while the mapped property is xPosition;
+     * a requested name that matches no property still goes into the projection, as before.
+     */
+    Selection selection(Class<?> type, Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        TypeFields typeFields = this.typeFields.computeIfAbsent(type, this::introspect);
+        Set<String> wanted = new HashSet<>();
+        List<String> stored = new ArrayList<>();
+        for (String field : fields) {
+            String key = field.toLowerCase(Locale.ROOT);
+            wanted.add(key);
+            stored.add(typeFields.stored().getOrDefault(key, field));
+        }
+        List<BeanPropertyDefinition> properties = typeFields.json().stream()
+            .filter(property -> property.getName().equals("id")
+                || wanted.contains(property.getName().toLowerCase(Locale.ROOT)))
+            .toList();
+        return new Selection(stored, properties);
+    }
+
+    private TypeFields introspect(Class<?> type) {
+        Map<String, String> stored = new HashMap<>();
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(type);
+        if (entity != null) {
+            for (MongoPersistentProperty property : entity) {
+                stored.put(property.getName().toLowerCase(Locale.ROOT), property.getName());
+            }
+        }
+        List<BeanPropertyDefinition> json = objectMapper.getSerializationConfig()
+            .introspect(objectMapper.constructType(type))
+            .findProperties().stream()
+            .filter(BeanPropertyDefinition::couldSerialize)
+            .toList();
+        return new TypeFields(stored, json);
+    }
+
+    private record TypeFields(Map<String, String> stored, List<BeanPropertyDefinition> json) {}
+
+    record Selection(List<String> storedFields, List<BeanPropertyDefinition> properties) {
+
+        // Drops the properties that were not requested, which the projection left null
+        Map<String, Object> select(Object item) {
+            Map<String, Object> selected = new LinkedHashMap<>();
+            for (BeanPropertyDefinition property : properties) {
+                selected.put(property.getName(), property.getAccessor().getValue(item));
+            }
+            return selected;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Builds a stable string key for a {@link MongoQuery} so that queries which differ only in
+ * map key order or numeric representation (5, 5L, 5.0) share cache and in-flight entries.
+ * Only key order that MongoDB ignores is normalized: the fields of a filter and the operators
+ * of a condition are sorted, but embedded documents used as values keep their order, since
+ * {a: {x: 1, y: 2}} and {a: {y: 2, x: 1}} match different documents. Sort specifications keep
+ * their order because it changes the meaning of the query.
+ */
+public final class MongoQueryKey {
+
+    private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+
+    private MongoQueryKey() {}
+
+    public static String of(MongoQuery query) {
+        StringBuilder key = new StringBuilder(128);
+        key.append("c=");
+        appendValue(key, query.getCollection(), true);
+        key.append(";f=");
+        appendFilter(key, query.getFilter());
+        key.append(";p=");
+        appendValue(key, query.getProjection(), true);
+        key.append(";s=");
+        appendValue(key, query.getSort(), false, true);
+        key.append(";k=").append(positive(query.getSkip()));
+        key.append(";l=").append(positive(query.getLimit()));
+        if (query.isAggregation()) {
+            // Stage order and key order inside stages such as $sort are significant
+            key.append(";a=");
+            appendValue(key, query.getPipeline(), false);
+        }
+        if (query.isKeysetPagination()) {
+            key.append(";ks=");
+            appendValue(key, query.getContinuationToken(), false);
+        }
+        return key.toString();
+    }
+
+    /**
+     * The normalized form of a filter alone.
+     */
+    static String filterKey(Map<String, Object> filter) {
+        StringBuilder key = new StringBuilder(64);
+        appendFilter(key, filter);
+        return key.toString();
+    }
+
+    private static void appendFilter(StringBuilder key, Object filter) {
+        if (!(filter instanceof Map<?, ?> map)) {
+            appendValue(key, filter, false);
+            return;
+        }
+        key.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : sorted(map).entrySet()) {
+            if (!first) {
+                key.append(',');
+            }
+            first = false;
+            appendString(key, entry.getKey());
+            key.append(':');
+            if (LOGICAL_OPERATORS.contains(entry.getKey()) && entry.getValue() instanceof Collection<?> clauses) {
+                // Each clause is a filter of its own; the clauses keep their order
+                key.append('[');
+                boolean firstClause = true;
+                for (Object clause : clauses) {
+                    if (!firstClause) {
+                        key.append(',');
+                    }
+                    firstClause = false;
+                    appendFilter(key, clause);
+                }
+                key.append(']');
+            } else {
+                appendCondition(key, entry.getValue());
+            }
+        }
+        key.append('}');
+    }
+
+    // A field's condition: an operator map such as {$gte: 1, $lt: 5} has unordered keys, while
+    // anything else is a literal compared as a whole, embedded documents in their field order
+    private static void appendCondition(StringBuilder key, Object condition) {
+        if (!(condition instanceof Map<?, ?> map) || map.isEmpty() || !isOperatorMap(map)) {
+            appendValue(key, condition, false);
+            return;
+        }
+        key.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : sorted(map).entrySet()) {
+            if (!first) {
+                key.append(',');
+            }
+            first = false;
+            appendString(key, entry.getKey());
+            key.append(':');
+            switch (entry.getKey()) {
+                case "$elemMatch" -> appendFilterOrCondition(key, entry.getValue());
+                case "$not" -> appendCondition(key, entry.getValue());
+                default -> appendValue(key, entry.getValue(), false);
+            }
+        }
+        key.append('}');
+    }
+
+    // $elemMatch takes either a query on the elements' fields or conditions on the elements
+    private static void appendFilterOrCondition(StringBuilder key, Object value) {
+        if (value instanceof Map<?, ?> map && !map.isEmpty() && isOperatorMap(map)) {
+            appendCondition(key, value);
+        } else {
+            appendFilter(key, value);
+        }
+    }
+
+    private static boolean isOperatorMap(Map<?, ?> map) {
+        return map.keySet().stream().allMatch(field -> String.valueOf(field).startsWith("$"));
+    }
+
+    private static int positive(Integer value) {
+        return value != null && value > 0 ? value : 0;
+    }
+
+    private static void appendValue(StringBuilder key, Object value, boolean sortKeys) {
+        appendValue(key, value, sortKeys, sortKeys);
+    }
+
+    private static void appendValue(StringBuilder key, Object value, boolean sortKeys, boolean sortNested) {
+        if (value == null) {
+            key.append("null");
+        } else if (value instanceof Map<?, ?> map) {
+            Map<?, ?> entries = sortKeys ? sorted(map) : map;
+            key.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                if (!first) {
+                    key.append(',');
+                }
+                first = false;
+                appendString(key, String.valueOf(entry.getKey()));
+                key.append(':');
+                appendValue(key, entry.getValue(), sortNested, sortNested);
+            }
+            key.append('}');
+        } else if (value instanceof Collection<?> items) {
+            key.append('[');
+            boolean first = true;
+            for (Object item : items) {
+                if (!first) {
+                    key.append(',');
+                }
+                first = false;
+                appendValue(key, item, sortNested, sortNested);
+            }
+            key.append(']');
+        } else if (value instanceof Number number) {
+            appendNumber(key, number);
+        } else if (value instanceof String string) {
+            appendString(key, string);
+        } else {
+            key.append(value.getClass().getSimpleName()).append('(');
+            appendString(key, value.toString());
+            key.append(')');
+        }
+    }
+
+    private static Map<String, Object> sorted(Map<?, ?> map) {
+        Map<String, Object> sorted = new TreeMap<>();
+        map.forEach((k, v) -> sorted.put(String.valueOf(k), v));
+        return sorted;
+    }
+
+    private static void appendNumber(StringBuilder key, Number number) {
+        // MongoDB compares numbers by value across BSON types, so 5, 5L and 5.0 are one key
+        if ((number instanceof Double || number instanceof Float) && !Double.isFinite(number.doubleValue())) {
+            key.append('#').append(number.doubleValue());
+            return;
+        }
+        BigDecimal decimal = number instanceof BigDecimal big
+            ? big
+            : new BigDecimal(number.toString());
+        key.append('#').append(decimal.stripTrailingZeros().toPlainString());
+    }
+
+    private static void appendString(StringBuilder key, String string) {
+        key.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                key.append('\\');
+            }
+            key.append(c);
+        }
+        key.append('"');
+    }
+}
@@ -1,16 +1,26 @@
 package com.dynamicui.service;
 
 import com.dynamicui.model.MongoQuery;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class MongoQueryService {
@@ -18,67 +28,233 @@ public class MongoQueryService {
     @Autowired(required = false)
     private MongoClient mongoClient;
 
-    private static final String DEFAULT_DATABASE = "dynamicui";
+    @Autowired
+    private QueryResultCache resultCache;
+
+    @Autowired
+    private QueryCoalescer queryCoalescer;
+
+    @Autowired
+    private IndexAdvisorService indexAdvisor;
+
+    @Autowired
+    private ProjectionResolver projectionResolver;
+
+    @Autowired
+    private CollectionEmptinessCache emptinessCache;
+
+    static final String DEFAULT_DATABASE = "dynamicui";
+
+    @Value("${mongo.query.max-time-ms:30000}")
+    private long maxQueryTimeMs;
+
+    @Value("${mongo.query.keyset.default-page-size:100}")
+    private int defaultPageSize;
 
     public List<Map<String, Object>> executeQuery(MongoQuery query) {
+        String collection = query.getCollection();
+        String key = cacheKey(query);
+        boolean cacheable = resultCache.isEnabled(collection);
+        if (cacheable) {
+            List<Map<String, Object>> cached = resultCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Identical concurrent queries share one execution and therefore one result list
+        return queryCoalescer.execute(key, maxTimeMs(query), () -> {
+            long generation = resultCache.generation(collection);
+            List<Map<String, Object>> results = loadQuery(projectionResolver.resolve(query));
+            return cacheable
+                ? resultCache.put(key, collection, generation, results)
+                : Collections.unmodifiableList(results);
+        });
+    }
+
+    /**
+     * The result cache and coalescing key, built from the query as sent so that a cache hit
+     * needs no projection lookup at all.
+     */
+    String cacheKey(MongoQuery query) {
+        return MongoQueryKey.of(query) + projectionResolver.bindingKey(query);
+    }
+
+    /**
+     * Runs one keyset page: the query is fetched with one extra row, which only serves to
+     * tell whether another page exists, and the page ends with the token for the next one.
+     */
+    public KeysetPagination.Page executeKeysetPage(MongoQuery query) {
+        List<Map<String, Object>> rows = executeQuery(query);
+        // Sample data is not a Mongo result and has no further pages
+        if (rows.isEmpty() || !(rows.get(0) instanceof Document)) {
+            return new KeysetPagination.Page(rows, null);
+        }
+        return KeysetPagination.page(rows, keysetPageSize(query), KeysetPagination.sort(query),
+            KeysetPagination.scope(query));
+    }
+
+    private int keysetPageSize(MongoQuery query) {
+        return query.getLimit() != null && query.getLimit() > 0 ? query.getLimit() : defaultPageSize;
+    }
+
+    private List<Map<String, Object>> loadQuery(MongoQuery query) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        streamQuery(query, results::add);
+        return results;
+    }
+
+    /**
+     * Hands each result document to the consumer as the cursor produces it, so callers
+     * that write straight to the response never hold the full result set in memory.
+     *
+     * @return the number of documents passed to the consumer
+     */
+    public long streamQuery(MongoQuery request, Consumer<Map<String, Object>> consumer) {
+        return streamQuery(request, consumer, true);
+    }
+
+    /**
+     * @param sampleData whether an empty collection, or no MongoDB at all, yields sample rows;
+     *                   without it the result is simply empty
+     */
+    public long streamQuery(MongoQuery request, Consumer<Map<String, Object>> consumer, boolean sampleData) {
+        MongoQuery query = projectionResolver.resolve(request);
+        List<Document> pipeline = query.isAggregation() ? validatePipeline(query) : null;
         if (mongoClient == null) {
-            // Return sample data if MongoDB is not configured
-            return getSampleData(query.getCollection());
+            // Return sample data if MongoDB is not configured; aggregations have no sample equivalent
+            return pipeline != null || !sampleData ? 0 : emitAll(getSampleData(query.getCollection()), consumer);
         }
 
         try {
             MongoDatabase database = mongoClient.getDatabase(DEFAULT_DATABASE);
             MongoCollection<Document> collection = database.getCollection(query.getCollection());
 
-            // Check if collection exists and has documents
-            long documentCount = collection.countDocuments();
-            if (documentCount == 0) {
+            if (sampleData && isCollectionEmpty(collection)) {
                 // Return sample data if collection is empty
-                return getSampleData(query.getCollection());
+                return pipeline != null ? 0 : emitAll(getSampleData(query.getCollection()), consumer);
             }
 
-            var findIterable = collection.find();
-
-            // Apply filter
-            if (query.getFilter() != null && !query.getFilter().isEmpty()) {
-                Document filterDoc = new Document(query.getFilter());
-                findIterable = findIterable.filter(filterDoc);
+            MongoIterable<Document> results = pipeline != null
+                ? buildAggregate(collection, query, pipeline)
+                : buildFind(collection, query);
+            long count = 0;
+            // Only time spent in the cursor counts; a slow consumer or socket is not the query's cost
+            long cursorNanos = 0;
+            long start = System.nanoTime();
+            try (MongoCursor<Document> cursor = results.iterator()) {
+                while (cursor.hasNext()) {
+                    Document document = cursor.next();
+                    cursorNanos += System.nanoTime() - start;
+                    consumer.accept(document);
+                    count++;
+                    start = System.nanoTime();
+                }
+                cursorNanos += System.nanoTime() - start;
             }
+            indexAdvisor.record(query, cursorNanos);
+            return count;
+        } catch (UncheckedIOException e) {
+            // The consumer failed to write, e.g. the client disconnected; not a query error
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error executing MongoDB query: " + e.getMessage(), e);
+        }
+    }
 
-            // Apply projection
-            if (query.getProjection() != null && !query.getProjection().isEmpty()) {
-                Document projectionDoc = new Document(query.getProjection());
-                findIterable = findIterable.projection(projectionDoc);
-            }
+    /**
+     * Decides whether to fall back to sample data. A hit on the cache costs nothing; a miss
+     * costs a single-document probe instead of a full countDocuments() aggregation. Only
+     * non-empty results are cached so that a freshly seeded collection is picked up at once.
+     */
+    private boolean isCollectionEmpty(MongoCollection<Document> collection) {
+        String name = collection.getNamespace().getCollectionName();
+        if (emptinessCache.isKnownNonEmpty(name)) {
+            return false;
+        }
 
-            // Apply sort
-            if (query.getSort() != null && !query.getSort().isEmpty()) {
-                Document sortDoc = new Document(query.getSort());
-                findIterable = findIterable.sort(sortDoc);
-            }
+        boolean empty = collection.find()
+            .projection(new Document("_id", 1))
+            .limit(1)
+            .first() == null;
+        emptinessCache.record(name, empty);
+        return empty;
+    }
 
-            // Apply skip
-            if (query.getSkip() != null && query.getSkip() > 0) {
-                findIterable = findIterable.skip(query.getSkip());
-            }
+    /**
+     * Drops cached state for a collection after it has been written or dropped.
+     */
+    public void invalidateCollection(String collection) {
+        emptinessCache.invalidate(collection);
+        resultCache.invalidateCollection(collection);
+    }
 
-            // Apply limit
-            if (query.getLimit() != null && query.getLimit() > 0) {
-                findIterable = findIterable.limit(query.getLimit());
-            }
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(resultCache.stats());
+        stats.put("coalescing", queryCoalescer.stats());
+        return stats;
+    }
 
-            List<Map<String, Object>> results = new ArrayList<>();
-            for (Document doc : findIterable) {
-                results.add(doc);
-            }
+    public void clearCache() {
+        emptinessCache.clear();
+        resultCache.clear();
+    }
 
-            return results;
-        } catch (Exception e) {
-            throw new RuntimeException("Error executing MongoDB query: " + e.getMessage(), e);
+    private List<Document> validatePipeline(MongoQuery query) {
+        if (query.isKeysetPagination()) {
+            throw new IllegalArgumentException("Keyset pagination is not supported for aggregation pipelines");
         }
+        return AggregationPipelineValidator.validate(query);
+    }
+
+    private AggregateIterable<Document> buildAggregate(MongoCollection<Document> collection, MongoQuery query,
+                                                       List<Document> pipeline) {
+        return collection.aggregate(pipeline)
+            .allowDiskUse(Boolean.TRUE.equals(query.getAllowDiskUse()))
+            .maxTime(maxTimeMs(query), TimeUnit.MILLISECONDS);
+    }
+
+    private long maxTimeMs(MongoQuery query) {
+        return FindSpec.maxTimeMs(query, maxQueryTimeMs);
+    }
+
+    private FindIterable<Document> buildFind(MongoCollection<Document> collection, MongoQuery query) {
+        FindSpec find = FindSpec.of(query, maxQueryTimeMs);
+        FindIterable<Document> findIterable = collection.find(find.filter())
+            .projection(find.projection())
+            .hint(find.hint())
+            .maxTime(find.maxTimeMs(), TimeUnit.MILLISECONDS);
+
+        if (query.isKeysetPagination()) {
+            return applyKeyset(findIterable, query);
+        }
+        return findIterable.sort(find.sort())
+            .skip(find.skip())
+            .limit(find.limit());
+    }
+
+    private FindIterable<Document> applyKeyset(FindIterable<Document> findIterable, MongoQuery query) {
+        Document sort = KeysetPagination.sort(query);
+        Document after = KeysetPagination.afterFilter(sort, query.getContinuationToken(),
+            KeysetPagination.scope(query));
+        if (after != null) {
+            findIterable = findIterable.filter(query.getFilter() != null && !query.getFilter().isEmpty()
+                ? new Document("$and", List.of(new Document(query.getFilter()), after))
+                : after);
+        }
+        if (query.getProjection() != null && !query.getProjection().isEmpty()) {
+            findIterable = findIterable.projection(KeysetPagination.projection(query.getProjection(), sort));
+        }
+        // skip is ignored: the continuation token replaces it
+        return findIterable.sort(sort).limit(keysetPageSize(query) + 1);
+    }
+
+    private long emitAll(List<Map<String, Object>> documents, Consumer<Map<String, Object>> consumer) {
+        documents.forEach(consumer);
+        return documents.size();
     }
 
-    private List<Map<String, Object>> getSampleData(String collection) {
+    List<Map<String, Object>> getSampleData(String collection) {
         // Return sample data based on collection name for demo purposes
         List<Map<String, Object>> sampleData = new ArrayList<>();
         
@@ -0,0 +1,162 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.model.UIComponent;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives queries bound to a {@link Dataset} (directly or through a {@link UIComponent}) a
+ * projection of the dataset's columns, so large fields the component never renders stay on
+ * the server. When an index holds every field the query touches, the query is hinted to it
+ * so MongoDB can answer from the index alone without reading documents.
+ */
+@Component
+public class ProjectionResolver {
+
+    @Autowired(required = false)
+    private MongoClient mongoClient;
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    @Value("${mongo.query.auto-projection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.query.auto-projection.index-cache-ms:60000}")
+    private long indexCacheMs;
+
+    private final Map<String, CachedIndexes> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the query as it should run: the same instance when nothing applies, otherwise a
+     * copy carrying the projection and hint. The caller's query is never modified.
+     */
+    public MongoQuery resolve(MongoQuery query) {
+        if (!applies(query)) {
+            return query;
+        }
+
+        Map<String, String> columns = boundColumns(query);
+        if (columns == null || columns.isEmpty()) {
+            return query;
+        }
+
+        Map<String, Object> projection = new LinkedHashMap<>();
+        columns.keySet().forEach(column -> projection.put(column, 1));
+        if (!columns.containsKey("_id") && !query.isKeysetPagination()) {
+            projection.put("_id", 0);
+        }
+        MongoQuery resolved = query.copy();
+        resolved.setProjection(projection);
+
+        if (mongoClient != null && !resolved.isKeysetPagination()) {
+            Document coveringIndex = findCoveringIndex(resolved);
+            if (coveringIndex != null) {
+                resolved.setHint(coveringIndex);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * What, besides the query itself, decides the projection {@link #resolve} would add: the
+     * dataset or component binding and the dataset cache generation, so results cached for an
+     * unresolved query are not served once the binding or the dataset's columns change.
+     * Empty when the query is not resolved.
+     */
+    public String bindingKey(MongoQuery query) {
+        if (!applies(query) || (query.getDatasetId() == null && query.getComponentId() == null)) {
+            return "";
+        }
+        return ";d=" + query.getDatasetId() + ";m=" + query.getComponentId() + ";g=" + datasetCache.generation();
+    }
+
+    private boolean applies(MongoQuery query) {
+        return enabled
+            && !Boolean.FALSE.equals(query.getAutoProject())
+            && !query.isAggregation()
+            && (query.getProjection() == null || query.getProjection().isEmpty());
+    }
+
+    public void invalidateIndexes(String collection) {
+        indexes.remove(collection);
+    }
+
+    private Map<String, String> boundColumns(MongoQuery query) {
+        String datasetId = query.getDatasetId();
+        if (datasetId == null) {
+            datasetId = datasetCache.datasetIdOfComponent(query.getComponentId()).orElse(null);
+        }
+        if (datasetId == null) {
+            return null;
+        }
+        return datasetCache.findById(datasetId).map(Dataset::getColumns).orElse(null);
+    }
+
+    /**
+     * Returns the key pattern of an index holding every filter, sort and projected field,
+     * skipping sparse and partial indexes, which do not contain every document.
+     */
+    private Document findCoveringIndex(MongoQuery query) {
+        Set<String> fields = new HashSet<>(query.getProjection().keySet());
+        if (Integer.valueOf(0).equals(query.getProjection().get("_id"))) {
+            fields.remove("_id");
+        } else {
+            fields.add("_id");
+        }
+        if (query.getFilter() != null) {
+            for (String field : query.getFilter().keySet()) {
+                if (field.startsWith("$")) {
+                    return null;
+                }
+                fields.add(field);
+            }
+        }
+        if (query.getSort() != null) {
+            fields.addAll(query.getSort().keySet());
+        }
+
+        for (Document index : indexesFor(query.getCollection())) {
+            Document keys = index.get("key", Document.class);
+            boolean complete = !index.getBoolean("sparse", false) && !index.containsKey("partialFilterExpression");
+            boolean plain = keys.values().stream().allMatch(direction -> direction instanceof Number);
+            if (complete && plain && keys.keySet().containsAll(fields)) {
+                return keys;
+            }
+        }
+        return null;
+    }
+
+    private List<Document> indexesFor(String collection) {
+        CachedIndexes cached = indexes.get(collection);
+        if (cached == null || cached.loadedAt + indexCacheMs < System.currentTimeMillis()) {
+            List<Document> loaded = new ArrayList<>();
+            try {
+                mongoClient.getDatabase(MongoQueryService.DEFAULT_DATABASE)
+                    .getCollection(collection)
+                    .listIndexes()
+                    .into(loaded);
+            } catch (Exception e) {
+                // Without index information the query simply runs unhinted
+            }
+            cached = new CachedIndexes(loaded, System.currentTimeMillis());
+            indexes.put(collection, cached);
+        }
+        return cached.indexes;
+    }
+
+    private record CachedIndexes(List<Document> indexes, long loadedAt) {}
+}
@@ -0,0 +1,28 @@
+package com.dynamicui.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates cached query results whenever a repository writes to a collection, so the
+ * pages, datasets and ui_components collections are never served stale through /api/mongo.
+ */
+@Component
+public class QueryCacheInvalidationListener extends AbstractMongoEventListener<Object> {
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        mongoQueryService.invalidateCollection(event.getCollectionName());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        mongoQueryService.invalidateCollection(event.getCollectionName());
+    }
+}
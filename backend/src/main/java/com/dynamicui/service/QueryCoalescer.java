@@ -0,0 +1,128 @@
+package com.dynamicui.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: the first caller for a key runs the loader and every concurrent
+ * caller with the same key waits for and shares its result. A waiter that exceeds the max
+ * wait may run its own execution while the per-key concurrency limit allows it; otherwise
+ * it keeps waiting for the in-flight one, but never past its own deadline.
+ */
+@Component
+public class QueryCoalescer {
+
+    @Value("${mongo.query.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.query.coalescing.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    @Value("${mongo.query.coalescing.max-concurrent-per-key:2}")
+    private int maxConcurrentPerKey;
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong breakaways = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * @param timeoutMs the caller's deadline for the query (its max time); a caller waiting on
+     *                  an in-flight execution gives up with an exception once it has passed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, long timeoutMs, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Flight flight = new Flight(maxConcurrentPerKey);
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            return (T) lead(key, flight, loader);
+        }
+        coalesced.incrementAndGet();
+        return (T) follow(existing, timeoutMs, loader);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("inFlight", inFlight.size());
+        stats.put("executions", executions.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("breakaways", breakaways.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    private Object lead(String key, Flight flight, Supplier<?> loader) {
+        executions.incrementAndGet();
+        try {
+            Object result = loader.get();
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object follow(Flight flight, long timeoutMs, Supplier<?> loader) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            try {
+                return flight.result.get(Math.min(maxWaitMs, timeoutMs), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (flight.extraExecutions.tryAcquire()) {
+                    breakaways.incrementAndGet();
+                    executions.incrementAndGet();
+                    try {
+                        return loader.get();
+                    } finally {
+                        flight.extraExecutions.release();
+                    }
+                }
+            }
+            try {
+                return flight.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timeouts.incrementAndGet();
+                throw new RuntimeException("Timed out after " + timeoutMs + " ms waiting for an identical in-flight query", e);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an in-flight query", e);
+        }
+    }
+
+    private static class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // The leader holds the first slot, so only the remainder is available to waiters
+        private final Semaphore extraExecutions;
+
+        Flight(int maxConcurrent) {
+            this.extraExecutions = new Semaphore(Math.max(0, maxConcurrent - 1));
+        }
+    }
+}
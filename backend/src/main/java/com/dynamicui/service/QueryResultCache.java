@@ -0,0 +1,196 @@
+package com.dynamicui.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of query results keyed by {@link MongoQueryKey}. Entries are evicted
+ * when either the entry count or the approximate retained size exceeds its limit, expire
+ * after a per-collection TTL, and are dropped when their collection is invalidated.
+ */
+@Component
+public class QueryResultCache {
+
+    @Value("${mongo.query.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mongo.query.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${mongo.query.cache.max-weight-bytes:67108864}")
+    private long maxWeightBytes;
+
+    @Value("${mongo.query.cache.ttl-ms:30000}")
+    private long defaultTtlMs;
+
+    // Comma-separated collection=ttlMs overrides, e.g. "orders=5000,products=300000"; 0 disables caching
+    @Value("${mongo.query.cache.collection-ttls:}")
+    private String collectionTtlSpec;
+
+    private final Map<String, Long> collectionTtls = new HashMap<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation so that results loaded before a write are not stored after it
+    private final Map<String, Long> generations = new HashMap<>();
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void parseCollectionTtls() {
+        for (String pair : collectionTtlSpec.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length == 2) {
+                collectionTtls.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+            }
+        }
+    }
+
+    public boolean isEnabled(String collection) {
+        return enabled && ttlFor(collection) > 0;
+    }
+
+    public synchronized List<Map<String, Object>> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key, entry);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.results;
+    }
+
+    public synchronized long generation(String collection) {
+        return generations.getOrDefault(collection, 0L);
+    }
+
+    /**
+     * Stores a result unless its collection was invalidated after {@code generation} was read.
+     *
+     * @return the cached results; the list and its rows are read-only because every caller
+     *         shares them
+     */
+    public List<Map<String, Object>> put(String key, String collection, long generation,
+                                         List<Map<String, Object>> results) {
+        List<Map<String, Object>> frozen = new ArrayList<>(results.size());
+        results.forEach(row -> frozen.add(ImmutableDocument.freeze(row)));
+        List<Map<String, Object>> cached = Collections.unmodifiableList(frozen);
+        long entryWeight = estimateWeight(results);
+        if (entryWeight <= maxWeightBytes) {
+            store(key, collection, generation, cached, entryWeight);
+        }
+        return cached;
+    }
+
+    private synchronized void store(String key, String collection, long generation,
+                                    List<Map<String, Object>> cached, long entryWeight) {
+        if (generation != generation(collection)) {
+            return;
+        }
+
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        entries.put(key, new Entry(collection, cached, entryWeight,
+            System.currentTimeMillis() + ttlFor(collection)));
+        weight += entryWeight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeightBytes) && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidateCollection(String collection) {
+        generations.merge(collection, 1L, Long::sum);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.collection.equals(collection)) {
+                iterator.remove();
+                weight -= entry.weight;
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations.addAndGet(entries.size());
+        entries.values().forEach(entry -> generations.merge(entry.collection, 1L, Long::sum));
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("weightBytes", weight);
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    private long ttlFor(String collection) {
+        return collectionTtls.getOrDefault(collection, defaultTtlMs);
+    }
+
+    /**
+     * Rough retained-size estimate: object headers plus payload for strings and numbers.
+     * Only used to keep the total bounded, so it does not need to be exact.
+     */
+    static long estimateWeight(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + estimateWeight(entry.getKey()) + estimateWeight(entry.getValue());
+            }
+            return size;
+        } else if (value instanceof Collection<?> items) {
+            long size = 40;
+            for (Object item : items) {
+                size += 8 + estimateWeight(item);
+            }
+            return size;
+        } else if (value instanceof CharSequence text) {
+            return 40 + text.length();
+        }
+        return 16;
+    }
+
+    private record Entry(String collection, List<Map<String, Object>> results, long weight, long expiresAt) {}
+}
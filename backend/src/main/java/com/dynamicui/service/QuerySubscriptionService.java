@@ -0,0 +1,760 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live query subscriptions over Server-Sent Events. A client registers a {@link MongoQuery},
+ * then connects to receive a {@code snapshot} event with the current results followed by
+ * {@code upsert} and {@code delete} deltas. All connections whose queries share a
+ * {@link MongoQueryKey} share one feed, and all feeds on a collection share one change-stream
+ * cursor, read by one virtual thread.
+ *
+ * <p>A change event only carries the document's id, so inserts, updates and replaces are
+ * re-read once for every feed on the collection, with one {@code $facet} per distinct filter
+ * and projection: a match is sent to the feed as an upsert, anything else as a delete, since
+ * the document has left its result set. Deltas follow the filter only; sort, skip and limit
+ * shape the snapshot, and clients order the rows they hold.
+ *
+ * <p>Feeds never write to a connection themselves: each connection has a bounded queue that
+ * is drained on its own virtual thread, and a connection whose queue fills up is closed so
+ * the client reconnects and starts over from a fresh snapshot.
+ *
+ * <p>Change streams need a replica set (a single-node one is enough). On a standalone server,
+ * or without MongoDB, feeds fall back to re-running their query every poll interval and
+ * sending the difference, which is still one query per distinct subscription rather than per
+ * client.
+ */
+@Service
+public class QuerySubscriptionService {
+
+    // "The $changeStream stage is only supported on replica sets"
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    @Autowired(required = false)
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Autowired
+    private ProjectionResolver projectionResolver;
+
+    @Value("${mongo.subscriptions.max:1000}")
+    private int maxSubscriptions;
+
+    // Distinct live queries, and collections with a change stream open (one pooled connection each)
+    @Value("${mongo.subscriptions.max-feeds:50}")
+    private int maxFeeds;
+
+    @Value("${mongo.subscriptions.max-collections:10}")
+    private int maxCollections;
+
+    // Events held for one connection before it is dropped as too slow
+    @Value("${mongo.subscriptions.listener-queue-size:256}")
+    private int listenerQueueSize;
+
+    @Value("${mongo.subscriptions.lookup-max-time-ms:2000}")
+    private long lookupMaxTimeMs;
+
+    @Value("${mongo.subscriptions.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    // How long a subscription without connections is kept for clients to reconnect
+    @Value("${mongo.subscriptions.idle-ttl-ms:600000}")
+    private long idleTtlMs;
+
+    @Value("${mongo.subscriptions.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${mongo.subscriptions.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${mongo.subscriptions.change-stream.enabled:true}")
+    private volatile boolean changeStreamEnabled;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final Map<String, CollectionWatch> watches = new ConcurrentHashMap<>();
+    // Writes to the SSE connections, so a slow client never holds up a feed
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Registers a query and returns the subscription id to connect with.
+     */
+    public String subscribe(MongoQuery query) {
+        if (query.getCollection() == null || query.getCollection().isBlank()) {
+            throw new IllegalArgumentException("Collection name is required");
+        }
+        if (query.isAggregation() || query.isKeysetPagination()) {
+            throw new IllegalArgumentException("Subscriptions support find queries only");
+        }
+        removeIdle();
+        if (subscriptions.size() >= maxSubscriptions) {
+            throw new IllegalStateException("Too many subscriptions (max " + maxSubscriptions + ")");
+        }
+
+        String id = UUID.randomUUID().toString();
+        // Queries bound to different datasets get different projections, so they cannot share a feed
+        subscriptions.put(id, new Subscription(query, MongoQueryKey.of(query) + projectionResolver.bindingKey(query)));
+        return id;
+    }
+
+    public boolean unsubscribe(String id) {
+        Subscription subscription = subscriptions.remove(id);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.listeners.forEach(Listener::close);
+        return true;
+    }
+
+    /**
+     * Opens an event stream for a subscription, or returns empty when the id is unknown.
+     * The snapshot is read after the feed's source is open, so no change is missed between
+     * the two; changes that arrive meanwhile are held back and sent after it.
+     *
+     * @throws IllegalStateException if the query would need a new feed or change stream
+     *         beyond the configured caps
+     */
+    public Optional<SseEmitter> connect(String id) {
+        Subscription subscription = subscriptions.get(id);
+        if (subscription == null) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Listener listener = new Listener(emitter, senders, listenerQueueSize);
+        Feed feed = join(subscription, listener);
+        Runnable leave = () -> leave(subscription, feed, listener);
+        emitter.onCompletion(leave);
+        emitter.onTimeout(leave);
+        emitter.onError(error -> leave.run());
+
+        try {
+            feed.watch.awaitOpen();
+            listener.start(snapshotEvent(load(feed.query)));
+        } catch (RuntimeException e) {
+            listener.fail(errorEvent(e));
+        }
+        return Optional.of(emitter);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscriptions", subscriptions.size());
+        stats.put("feeds", feeds.size());
+        stats.put("collections", watches.size());
+        stats.put("connections", feeds.values().stream().mapToInt(feed -> feed.listeners.size()).sum());
+        stats.put("mode", mongoClient != null && changeStreamEnabled ? "change-stream" : "polling");
+        return stats;
+    }
+
+    @PreDestroy
+    void stop() {
+        watches.values().forEach(CollectionWatch::stop);
+        senders.shutdownNow();
+    }
+
+    private Feed join(Subscription subscription, Listener listener) {
+        Feed joined = feeds.compute(subscription.key, (key, feed) -> {
+            if (feed == null) {
+                if (feeds.size() >= maxFeeds) {
+                    throw new IllegalStateException("Too many live queries (max " + maxFeeds + ")");
+                }
+                feed = new Feed(feedQuery(subscription.query));
+                feed.watch = watch(feed);
+            }
+            feed.listeners.add(listener);
+            return feed;
+        });
+        subscription.listeners.add(listener);
+        subscription.idleSince = 0;
+        return joined;
+    }
+
+    private void leave(Subscription subscription, Feed feed, Listener listener) {
+        listener.close();
+        subscription.listeners.remove(listener);
+        if (subscription.listeners.isEmpty()) {
+            subscription.idleSince = System.currentTimeMillis();
+        }
+        feeds.computeIfPresent(subscription.key, (key, current) -> {
+            if (current != feed) {
+                return current;
+            }
+            feed.listeners.remove(listener);
+            if (feed.listeners.isEmpty()) {
+                unwatch(feed);
+                return null;
+            }
+            return feed;
+        });
+    }
+
+    private CollectionWatch watch(Feed feed) {
+        return watches.compute(feed.query.getCollection(), (collection, watch) -> {
+            if (watch == null) {
+                if (watches.size() >= maxCollections) {
+                    throw new IllegalStateException(
+                        "Too many collections with live queries (max " + maxCollections + ")");
+                }
+                watch = new CollectionWatch(collection);
+                watch.start();
+            }
+            watch.feeds.add(feed);
+            return watch;
+        });
+    }
+
+    private void unwatch(Feed feed) {
+        watches.computeIfPresent(feed.query.getCollection(), (collection, watch) -> {
+            watch.feeds.remove(feed);
+            if (watch.feeds.isEmpty()) {
+                watch.stop();
+                return null;
+            }
+            return watch;
+        });
+    }
+
+    private void removeIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        subscriptions.values().removeIf(subscription ->
+            subscription.idleSince > 0 && subscription.idleSince < cutoff);
+    }
+
+    /**
+     * The query a feed runs for its snapshots and re-reads alike, so both return rows of the same
+     * shape: resolved once, with the dataset's projection for bound queries, and never excluding
+     * {@code _id}, which clients match upserts and deletes by and polling diffs on.
+     */
+    MongoQuery feedQuery(MongoQuery query) {
+        MongoQuery resolved = projectionResolver.resolve(query);
+        Map<String, Object> projection = resolved.getProjection();
+        if (projection == null || !projection.containsKey("_id") || isIncluded(projection.get("_id"))) {
+            return resolved;
+        }
+        Map<String, Object> withId = new LinkedHashMap<>(projection);
+        withId.remove("_id");
+        MongoQuery feedQuery = resolved == query ? query.copy() : resolved;
+        // An empty projection would let the resolver project the query again
+        feedQuery.setProjection(withId.isEmpty() ? null : withId);
+        feedQuery.setAutoProject(false);
+        return feedQuery;
+    }
+
+    private static boolean isIncluded(Object value) {
+        return value instanceof Number number ? number.doubleValue() != 0 : !Boolean.FALSE.equals(value);
+    }
+
+    private List<Map<String, Object>> load(MongoQuery query) {
+        // Bypasses the result cache: a snapshot must not predate the feed's source. No sample
+        // rows either: they would never be followed by a matching change
+        List<Map<String, Object>> rows = new ArrayList<>();
+        mongoQueryService.streamQuery(query, rows::add, false);
+        return rows;
+    }
+
+    /**
+     * A change to one document of a polled result: the new row, or null when it left the result.
+     */
+    record Delta(Object id, Map<String, Object> document) {}
+
+    /**
+     * The upserts and deletes that turn {@code before} into {@code after}: deletes first, then
+     * upserts in result order. Null when the results cannot be diffed, because there is no
+     * previous result or a row has no {@code _id} or repeats one.
+     */
+    static List<Delta> diff(List<Map<String, Object>> before, List<Map<String, Object>> after) {
+        if (before == null) {
+            return null;
+        }
+        if (after.equals(before)) {
+            return List.of();
+        }
+        Map<Object, Map<String, Object>> current = byId(after);
+        Map<Object, Map<String, Object>> previous = byId(before);
+        if (current == null || previous == null) {
+            return null;
+        }
+        List<Delta> deltas = new ArrayList<>();
+        previous.keySet().forEach(id -> {
+            if (!current.containsKey(id)) {
+                deltas.add(new Delta(id, null));
+            }
+        });
+        current.forEach((id, row) -> {
+            if (!row.equals(previous.get(id))) {
+                deltas.add(new Delta(id, row));
+            }
+        });
+        return deltas;
+    }
+
+    private static Map<Object, Map<String, Object>> byId(List<Map<String, Object>> rows) {
+        Map<Object, Map<String, Object>> map = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            Object id = row.get("_id");
+            if (id == null || map.put(id, row) != null) {
+                return null;
+            }
+        }
+        return map;
+    }
+
+    // Events are built once and sent as is to every listener; building again would append to them
+    private static Set<DataWithMediaType> snapshotEvent(List<Map<String, Object>> rows) {
+        return SseEmitter.event().name("snapshot").data(Map.of("data", rows, "count", rows.size())).build();
+    }
+
+    private static Set<DataWithMediaType> upsertEvent(Object id, Map<String, Object> document) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", id);
+        data.put("document", document);
+        return SseEmitter.event().name("upsert").data(data).build();
+    }
+
+    private static Set<DataWithMediaType> deleteEvent(Object id) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", id);
+        return SseEmitter.event().name("delete").data(data).build();
+    }
+
+    private static Set<DataWithMediaType> deltaEvent(Delta delta) {
+        return delta.document() != null ? upsertEvent(delta.id(), delta.document()) : deleteEvent(delta.id());
+    }
+
+    private static Set<DataWithMediaType> errorEvent(Exception e) {
+        return SseEmitter.event().name("error").data(Map.of("error", String.valueOf(e.getMessage()))).build();
+    }
+
+    private static class Subscription {
+        final MongoQuery query;
+        final String key;
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        // When the last connection closed (or the subscription was made); 0 while connected
+        volatile long idleSince = System.currentTimeMillis();
+
+        Subscription(MongoQuery query, String key) {
+            this.query = query;
+            this.key = key;
+        }
+    }
+
+    /**
+     * One SSE connection. Events are queued and written by one sender task at a time, so they
+     * arrive in order, and nothing is written until the connection's snapshot is first in line.
+     * Queueing never blocks: a connection with {@code capacity} events outstanding is closed.
+     * The emitter is only ever touched from the sender, since its methods lock it for the
+     * duration of a write.
+     */
+    static class Listener {
+        final SseEmitter emitter;
+        private final Executor sender;
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+        private boolean started;
+        private boolean draining;
+        private boolean completeWhenDrained;
+        private volatile boolean closed;
+
+        Listener(SseEmitter emitter, Executor sender, int capacity) {
+            this.emitter = emitter;
+            this.sender = sender;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Sends the snapshot, then everything delivered so far.
+         */
+        void start(Set<DataWithMediaType> snapshot) {
+            lock.lock();
+            try {
+                queue.addFirst(snapshot);
+                started = true;
+                drainLater();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sends only {@code event} and ends the connection.
+         */
+        void fail(Set<DataWithMediaType> event) {
+            lock.lock();
+            try {
+                queue.clear();
+                queue.add(event);
+                started = true;
+                completeWhenDrained = true;
+                drainLater();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void deliver(Set<DataWithMediaType> event) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= capacity) {
+                    // The client cannot keep up; it reconnects and starts over from a snapshot
+                    closeLocked();
+                    return;
+                }
+                queue.add(event);
+                if (started) {
+                    drainLater();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closeLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private void closeLocked() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            sender.execute(emitter::complete);
+        }
+
+        private void drainLater() {
+            if (!draining && !queue.isEmpty()) {
+                draining = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> event;
+                boolean complete = false;
+                lock.lock();
+                try {
+                    event = closed ? null : queue.poll();
+                    if (event == null) {
+                        draining = false;
+                        if (completeWhenDrained && !closed) {
+                            closed = true;
+                            complete = true;
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (event == null) {
+                    if (complete) {
+                        emitter.complete();
+                    }
+                    return;
+                }
+                send(event);
+            }
+        }
+
+        private void send(Set<DataWithMediaType> event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; completing triggers the leave callback
+                lock.lock();
+                try {
+                    closed = true;
+                    queue.clear();
+                } finally {
+                    lock.unlock();
+                }
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * The connections sharing one query key, and the last polled result when polling.
+     */
+    private static class Feed {
+        final MongoQuery query;
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        CollectionWatch watch;
+        // Polling only: the last result, or null before the first poll
+        private List<Map<String, Object>> previousRows;
+
+        Feed(MongoQuery query) {
+            this.query = query;
+        }
+
+        void broadcast(Set<DataWithMediaType> event) {
+            listeners.forEach(listener -> listener.deliver(event));
+        }
+    }
+
+    /**
+     * The shared source of changes for every feed on one collection, run on a virtual thread.
+     */
+    private class CollectionWatch implements Runnable {
+        final String collection;
+        final List<Feed> feeds = new CopyOnWriteArrayList<>();
+        private final CountDownLatch opened = new CountDownLatch(1);
+        private final Thread thread;
+        private volatile boolean running = true;
+        private boolean started;
+        private long lastHeartbeat = System.currentTimeMillis();
+
+        CollectionWatch(String collection) {
+            this.collection = collection;
+            this.thread = Thread.ofVirtual().name("query-subscription-" + collection).unstarted(this);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            thread.interrupt();
+        }
+
+        void awaitOpen() {
+            try {
+                opened.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                if (mongoClient != null && changeStreamEnabled) {
+                    try {
+                        follow();
+                    } catch (MongoCommandException e) {
+                        if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                            changeStreamEnabled = false;
+                        } else {
+                            pause(pollIntervalMs);
+                        }
+                    } catch (RuntimeException e) {
+                        // Lost the stream; it is reopened with a fresh snapshot
+                        pause(pollIntervalMs);
+                    }
+                } else {
+                    opened.countDown();
+                    feeds.forEach(this::poll);
+                    heartbeat();
+                    pause(pollIntervalMs);
+                }
+            }
+        }
+
+        private void follow() {
+            MongoCollection<Document> source = mongoClient.getDatabase(MongoQueryService.DEFAULT_DATABASE)
+                .getCollection(collection);
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = source.watch()
+                    .maxAwaitTime(1, TimeUnit.SECONDS)
+                    .cursor()) {
+                opened.countDown();
+                if (started) {
+                    // Changes made while the stream was down were not seen
+                    feeds.forEach(feed -> feed.broadcast(snapshotEvent(load(feed.query))));
+                }
+                started = true;
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event != null && !apply(source, event)) {
+                        return;
+                    }
+                    heartbeat();
+                }
+            }
+        }
+
+        /**
+         * @return false when the event ends the stream (drop, rename, invalidate)
+         */
+        private boolean apply(MongoCollection<Document> source, ChangeStreamDocument<Document> event) {
+            BsonDocument key = event.getDocumentKey();
+            OperationType type = event.getOperationType();
+            if (key == null || !key.containsKey("_id")) {
+                return type != OperationType.DROP && type != OperationType.RENAME
+                    && type != OperationType.DROP_DATABASE && type != OperationType.INVALIDATE;
+            }
+            Object id = decode(key).get("_id");
+            Set<DataWithMediaType> deleted = deleteEvent(id);
+            List<Feed> targets = List.copyOf(feeds);
+            if (type == OperationType.DELETE) {
+                targets.forEach(feed -> feed.broadcast(deleted));
+                return true;
+            }
+
+            Map<Feed, Document> matches = lookup(source, id, targets);
+            for (Feed feed : targets) {
+                Document document = matches.get(feed);
+                feed.broadcast(document != null ? upsertEvent(id, document) : deleted);
+            }
+            return true;
+        }
+
+        /**
+         * Re-reads a changed document for every feed in one round trip: a {@code $facet} per
+         * distinct filter and projection. Filters and projections that {@code $facet} does not
+         * accept ({@code $text}, {@code $near}, positional projections) fall back to one find
+         * per feed.
+         */
+        private Map<Feed, Document> lookup(MongoCollection<Document> source, Object id, List<Feed> targets) {
+            Map<List<Document>, String> facetNames = new HashMap<>();
+            Map<Feed, String> facetOf = new HashMap<>();
+            Document facets = new Document();
+            for (Feed feed : targets) {
+                List<Document> stages = new ArrayList<>();
+                if (feed.query.getFilter() != null && !feed.query.getFilter().isEmpty()) {
+                    stages.add(new Document("$match", new Document(feed.query.getFilter())));
+                }
+                if (feed.query.getProjection() != null && !feed.query.getProjection().isEmpty()) {
+                    stages.add(new Document("$project", new Document(feed.query.getProjection())));
+                }
+                if (stages.isEmpty()) {
+                    stages.add(new Document("$limit", 1));
+                }
+                String name = facetNames.computeIfAbsent(stages, s -> "f" + facetNames.size());
+                facets.putIfAbsent(name, stages);
+                facetOf.put(feed, name);
+            }
+
+            Document result;
+            try {
+                result = source.aggregate(List.of(
+                        new Document("$match", new Document("_id", id)),
+                        new Document("$facet", facets)))
+                    .maxTime(lookupMaxTimeMs, TimeUnit.MILLISECONDS)
+                    .first();
+            } catch (MongoCommandException e) {
+                return lookupEach(source, id, targets);
+            }
+            Map<Feed, Document> matches = new HashMap<>();
+            if (result != null) {
+                facetOf.forEach((feed, name) -> {
+                    List<Document> found = result.getList(name, Document.class);
+                    if (found != null && !found.isEmpty()) {
+                        matches.put(feed, found.get(0));
+                    }
+                });
+            }
+            return matches;
+        }
+
+        private Map<Feed, Document> lookupEach(MongoCollection<Document> source, Object id, List<Feed> targets) {
+            Map<Feed, Document> matches = new HashMap<>();
+            for (Feed feed : targets) {
+                Document match = new Document("_id", id);
+                if (feed.query.getFilter() != null && !feed.query.getFilter().isEmpty()) {
+                    match = new Document("$and", List.of(match, new Document(feed.query.getFilter())));
+                }
+                FindIterable<Document> find = source.find(match).maxTime(lookupMaxTimeMs, TimeUnit.MILLISECONDS);
+                if (feed.query.getProjection() != null && !feed.query.getProjection().isEmpty()) {
+                    find = find.projection(new Document(feed.query.getProjection()));
+                }
+                Document document = find.first();
+                if (document != null) {
+                    matches.put(feed, document);
+                }
+            }
+            return matches;
+        }
+
+        private void poll(Feed feed) {
+            try {
+                List<Map<String, Object>> rows = load(feed.query);
+                List<Delta> deltas = diff(feed.previousRows, rows);
+                if (deltas == null) {
+                    if (started || feed.previousRows != null) {
+                        // First poll after the change stream failed, or rows without an _id to diff on
+                        feed.broadcast(snapshotEvent(rows));
+                    }
+                } else {
+                    deltas.forEach(delta -> feed.broadcast(deltaEvent(delta)));
+                }
+                feed.previousRows = rows;
+            } catch (RuntimeException e) {
+                feed.broadcast(errorEvent(e));
+            }
+        }
+
+        private void heartbeat() {
+            long now = System.currentTimeMillis();
+            if (now - lastHeartbeat >= heartbeatMs) {
+                lastHeartbeat = now;
+                Set<DataWithMediaType> keepalive = SseEmitter.event().comment("keepalive").build();
+                feeds.forEach(feed -> feed.broadcast(keepalive));
+            }
+        }
+
+        private void pause(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    private static Document decode(BsonDocument document) {
+        return new DocumentCodec().decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,150 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link MongoQueryService} built on the reactive streams
+ * driver. Documents are pulled from the cursor only as fast as the subscriber requests
+ * them, so a slow client slows the cursor instead of buffering the result on the heap.
+ * Queries get the same dataset projection and share the same result cache as the blocking
+ * path; a result is only cached when it has at most app.reactive.cache-max-rows rows.
+ */
+@Service
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveMongoQueryService {
+
+    @Autowired
+    private MongoClient reactiveMongoClient;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Autowired
+    private ProjectionResolver projectionResolver;
+
+    @Autowired
+    private QueryResultCache resultCache;
+
+    @Autowired
+    private CollectionEmptinessCache emptinessCache;
+
+    @Value("${mongo.query.max-time-ms:30000}")
+    private long maxQueryTimeMs;
+
+    @Value("${app.reactive.batch-size:256}")
+    private int batchSize;
+
+    @Value("${app.reactive.cache-max-rows:10000}")
+    private int cacheMaxRows;
+
+    public Flux<Map<String, Object>> executeQuery(MongoQuery query) {
+        if (query.isKeysetPagination()) {
+            return Flux.error(new IllegalArgumentException("Keyset pagination is not supported on the reactive path"));
+        }
+
+        List<Document> pipeline;
+        try {
+            pipeline = query.isAggregation() ? AggregationPipelineValidator.validate(query) : null;
+        } catch (IllegalArgumentException e) {
+            return Flux.error(e);
+        }
+
+        String key = mongoQueryService.cacheKey(query);
+        boolean cacheable = resultCache.isEnabled(query.getCollection());
+        if (cacheable) {
+            List<Map<String, Object>> cached = resultCache.get(key);
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+        }
+
+        // Resolving a dataset projection may have to load the dataset or component
+        Flux<Map<String, Object>> results = Mono.fromCallable(() -> projectionResolver.resolve(query))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(resolved -> load(resolved, pipeline));
+        return cacheable ? cached(key, query.getCollection(), results) : results;
+    }
+
+    private Flux<Map<String, Object>> load(MongoQuery query, List<Document> pipeline) {
+        MongoCollection<Document> collection = reactiveMongoClient
+            .getDatabase(MongoQueryService.DEFAULT_DATABASE)
+            .getCollection(query.getCollection());
+
+        // The blocking path's cache, so the probe runs at most once per TTL across both paths
+        Mono<Boolean> empty = emptinessCache.isKnownNonEmpty(query.getCollection())
+            ? Mono.just(false)
+            : Mono.from(collection.find().projection(new Document("_id", 1)).first())
+                .map(document -> false)
+                .defaultIfEmpty(true)
+                .doOnNext(isEmpty -> emptinessCache.record(query.getCollection(), isEmpty));
+
+        return empty.flatMapMany(isEmpty -> {
+            if (isEmpty) {
+                // Same fallback as the blocking path; aggregations have no sample equivalent
+                return pipeline != null
+                    ? Flux.empty()
+                    : Flux.fromIterable(mongoQueryService.getSampleData(query.getCollection()));
+            }
+            if (pipeline != null) {
+                return Flux.<Map<String, Object>>from(collection.aggregate(pipeline)
+                    .allowDiskUse(Boolean.TRUE.equals(query.getAllowDiskUse()))
+                    .maxTime(FindSpec.maxTimeMs(query, maxQueryTimeMs), TimeUnit.MILLISECONDS)
+                    .batchSize(batchSize));
+            }
+            return Flux.<Map<String, Object>>from(buildFind(collection, query));
+        });
+    }
+
+    /**
+     * Passes rows through while keeping a copy, and caches the copy once the cursor completes
+     * unless it grew past the row cap or the collection was written in the meantime.
+     */
+    private Flux<Map<String, Object>> cached(String key, String collection, Flux<Map<String, Object>> results) {
+        return Flux.defer(() -> {
+            long generation = resultCache.generation(collection);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            boolean[] overflow = new boolean[1];
+            return results
+                .doOnNext(row -> {
+                    if (rows.size() < cacheMaxRows) {
+                        rows.add(row);
+                    } else {
+                        overflow[0] = true;
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!overflow[0]) {
+                        resultCache.put(key, collection, generation, rows);
+                    }
+                });
+        });
+    }
+
+    private FindPublisher<Document> buildFind(MongoCollection<Document> collection, MongoQuery query) {
+        FindSpec find = FindSpec.of(query, maxQueryTimeMs);
+        return collection.find(find.filter())
+            .projection(find.projection())
+            .hint(find.hint())
+            .sort(find.sort())
+            .skip(find.skip())
+            .limit(find.limit())
+            .maxTime(find.maxTimeMs(), TimeUnit.MILLISECONDS)
+            .batchSize(batchSize);
+    }
+}
@@ -0,0 +1,48 @@
+package com.dynamicui.backend.repository;
+
+import com.dynamicui.backend.model.Page;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ExecutableFindOperation.ExecutableFind;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageRepositoryTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void latestUpdateReadsOnlyTheTimestampOfTheNewestPage() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        MongoOperations operations = mock(MongoOperations.class);
+        when(operations.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        ExecutableFind<Page> find = mock(ExecutableFind.class);
+        when(operations.query(Page.class)).thenReturn(find);
+        when(find.inCollection(any())).thenReturn(find);
+        when(find.as(any())).thenAnswer(invocation -> find);
+        when(find.matching(any(Query.class))).thenReturn(find);
+        PageRepository repository = new MongoRepositoryFactory(operations).getRepository(PageRepository.class);
+
+        repository.findTopByOrderByUpdatedAtDesc();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(find).matching(query.capture());
+        verify(find).firstValue();
+        assertThat(query.getValue().getFieldsObject()).isEqualTo(new Document("updated_at", 1));
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("updatedAt", -1));
+    }
+}
@@ -0,0 +1,153 @@
+package com.dynamicui.backend.service;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.KeysetPagination;
+import com.dynamicui.service.MongoQueryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageBundleServiceTest {
+
+    private final MongoQueryService mongoQueryService = mock(MongoQueryService.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PageBundleService service = new PageBundleService(2);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "datasetCache", mock(DatasetCache.class));
+        ReflectionTestUtils.setField(service, "mongoQueryService", mongoQueryService);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "mongoQueryExecutor", executor);
+        ReflectionTestUtils.setField(service, "defaultTimeoutMs", 2_000L);
+        ReflectionTestUtils.setField(service, "maxTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(service, "defaultRows", 50);
+        ReflectionTestUtils.setField(service, "maxRows", 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsAtMostTheConfiguredNumberOfSourcesAtOnce() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return List.of(Map.of("a", 1));
+        });
+
+        Map<String, Object> bundle = service.getBundle(page(6, Map.of("collection", "orders")), null);
+
+        assertThat(bundle).containsEntry("complete", true);
+        assertThat(peak.get()).isEqualTo(2);
+    }
+
+    @Test
+    void eachComponentHasItsOwnTimeout() {
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            MongoQuery query = invocation.getArgument(0);
+            if ("slow".equals(query.getCollection())) {
+                Thread.sleep(1_000);
+            }
+            return List.of(Map.of("a", 1));
+        });
+        Page page = new Page();
+        page.setComponents(List.of(
+            component("slow", Map.of("collection", "slow", "timeoutMs", "100")),
+            // Queued behind the slow one, but its own 2s budget is untouched by the 100ms one
+            component("fast", Map.of("collection", "fast"))));
+
+        Map<String, Object> bundle = service.getBundle(page, null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> data = (Map<String, Map<String, Object>>) bundle.get("data");
+        assertThat(data.get("slow")).containsEntry("status", "timeout")
+            .containsEntry("error", "Timeout of 100ms exceeded");
+        assertThat(data.get("fast")).containsEntry("status", "ok");
+        assertThat(bundle).containsEntry("complete", false);
+    }
+
+    @Test
+    void componentsWaitingForASlotTimeOutTogether() {
+        AtomicInteger executions = new AtomicInteger();
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            executions.incrementAndGet();
+            Thread.sleep(300);
+            return List.of(Map.of("a", 1));
+        });
+        List<Page.UIComponent> components = new ArrayList<>();
+        // Both slots are taken for 300ms by the first two components
+        components.add(component("busy-0", Map.of("collection", "orders")));
+        components.add(component("busy-1", Map.of("collection", "orders")));
+        for (int i = 0; i < 6; i++) {
+            components.add(component("queued-" + i, Map.of("collection", "orders", "timeoutMs", "150")));
+        }
+        Page page = new Page();
+        page.setComponents(components);
+
+        Map<String, Object> bundle = service.getBundle(page, null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> data = (Map<String, Map<String, Object>>) bundle.get("data");
+        assertThat(data.get("busy-0")).containsEntry("status", "ok");
+        for (int i = 0; i < 6; i++) {
+            assertThat(data.get("queued-" + i)).containsEntry("status", "timeout");
+        }
+        assertThat(executions).hasValue(2);
+        // Waiting one after another, the later ones would only start once the slots came free
+        assertThat((Long) bundle.get("elapsedMs")).isLessThan(700L);
+    }
+
+    @Test
+    void keysetComponentsGetOnePageWithoutTheLookAheadRow() {
+        when(mongoQueryService.executeKeysetPage(any())).thenReturn(
+            new KeysetPagination.Page(List.of(Map.of("_id", 1), Map.of("_id", 2)), "next-token"));
+
+        Map<String, Object> bundle = service.getBundle(page(1, Map.of(
+            "mongoQuery", "{\"collection\":\"orders\",\"keyset\":true,\"limit\":2}")), null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> data = (Map<String, Map<String, Object>>) bundle.get("data");
+        assertThat(data.get("component-0"))
+            .containsEntry("count", 2)
+            .containsEntry("continuationToken", "next-token");
+    }
+
+    private static Page page(int components, Map<String, String> properties) {
+        List<Page.UIComponent> list = new ArrayList<>();
+        for (int i = 0; i < components; i++) {
+            list.add(component(null, properties));
+        }
+        Page page = new Page();
+        page.setComponents(list);
+        return page;
+    }
+
+    private static Page.UIComponent component(String id, Map<String, String> properties) {
+        Page.UIComponent component = new Page.UIComponent();
+        component.setId(id);
+        component.setProperties(properties);
+        return component;
+    }
+}
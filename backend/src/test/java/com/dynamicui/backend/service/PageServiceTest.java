@@ -0,0 +1,265 @@
+package com.dynamicui.backend.service;
+
+import com.dynamicui.backend.model.ComponentEdit;
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.repository.PageRepository;
+import com.dynamicui.service.MongoQueryService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageServiceTest {
+
+    private final PageRepository pageRepository = mock(PageRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final PageSnapshotService pageSnapshotService = mock(PageSnapshotService.class);
+    private final PageService service = new PageService();
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        when(mongoTemplate.getCollectionName(Page.class)).thenReturn("pages");
+        ReflectionTestUtils.setField(service, "pageRepository", pageRepository);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "pageSnapshotService", pageSnapshotService);
+        ReflectionTestUtils.setField(service, "mongoQueryService", mock(MongoQueryService.class));
+    }
+
+    @Test
+    void conflictNamesComponentsWhoseVersionDiffersFromTheCallersCopy() {
+        Page stored = page(5L, component("a", 3L), component("b", 1L), component("c", null));
+        when(pageRepository.findById("p1")).thenReturn(Optional.of(stored));
+        // The caller's copy predates edits to "a" and the creation of "c"; its updatedAt is irrelevant
+        Page submitted = page(4L, component("a", 2L), component("b", 1L));
+        submitted.setUpdatedAt(LocalDateTime.now().plusDays(1));
+
+        assertThatThrownBy(() -> service.updatePage("p1", submitted))
+            .isInstanceOfSatisfying(PageConflictException.class, e -> {
+                assertThat(e.getCurrentVersion()).isEqualTo(5L);
+                assertThat(e.getChangedComponentIds()).containsExactly("a", "c");
+            });
+        verify(pageRepository, never()).save(any());
+    }
+
+    @Test
+    void mergeWritesAllEditsInOneConditionalUpdate() {
+        Page updated = page(6L, component("a", 4L), component("b", 1L), component("c", 1L));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(updated);
+
+        Map<String, Object> result = service.mergeComponents("p1",
+            List.of(edit("c", 0L, Map.of("name", "C")), edit("a", 3L, Map.of("width", 4)))).orElseThrow();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).findAndModify(query.capture(), update.capture(),
+            any(FindAndModifyOptions.class), eq(Page.class));
+        assertThat(query.getValue().getQueryObject().toJson()).contains("$and", "$elemMatch");
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set).containsKeys("components.$[c0].name", "components.$[c1].width");
+        assertThat(update.getValue().getArrayFilters()).extracting(filter -> filter.asDocument())
+            .containsExactly(
+                new Document("c0._id", "c").append("c0.version", new Document("$in", nullable(0L))),
+                new Document("c1._id", "a").append("c1.version", 3L));
+
+        assertThat(result.get("version")).isEqualTo(6L);
+        assertThat(((List<?>) result.get("applied"))).extracting(c -> ((Page.UIComponent) c).getId())
+            .containsExactly("c", "a");
+        assertThat((List<?>) result.get("conflicts")).isEmpty();
+        verify(pageSnapshotService).evict("p1");
+    }
+
+    @Test
+    void mergeAppliesNothingWhenOneEditConflicts() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(null);
+        when(pageRepository.findById("p1")).thenReturn(Optional.of(page(7L, component("a", 3L), component("b", 2L))));
+
+        Map<String, Object> result = service.mergeComponents("p1", List.of(
+            edit("a", 3L, Map.of("width", 4)),
+            edit("b", 1L, Map.of("width", 5)),
+            edit("gone", 0L, Map.of("width", 6)))).orElseThrow();
+
+        assertThat((List<?>) result.get("applied")).isEmpty();
+        assertThat(result.get("conflicts")).isEqualTo(List.of("b"));
+        assertThat(result.get("missing")).isEqualTo(List.of("gone"));
+        assertThat(result.get("version")).isEqualTo(7L);
+        verify(pageSnapshotService, never()).evict("p1");
+    }
+
+    @Test
+    void mergeRejectsInvalidEditsBeforeWriting() {
+        assertThatThrownBy(() -> service.mergeComponents("p1",
+            List.of(edit("a", 1L, Map.of("width", 1)), edit("a", 1L, Map.of("height", 1)))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.mergeComponents("p1",
+            List.of(edit("a", 1L, Map.of("width", 1)), edit("b", 1L, Map.of("createdAt", "x")))))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+            any(FindAndModifyOptions.class), eq(Page.class));
+    }
+
+    @Test
+    void componentPatchIsOnePositionalSet() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(page(3L, component("a", 2L)));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("title", "Sales");
+        properties.put("limit", 10);
+        properties.put("legacy", null);
+
+        assertThat(service.updateComponent("p1", "a", Map.of("width", 4, "properties", properties), 2L, 1L))
+            .hasValueSatisfying(page -> assertThat(page.getVersion()).isEqualTo(3L));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Page.class));
+        assertThat(query.getValue().getQueryObject())
+            .containsEntry("version", 2L)
+            .containsEntry("components", new Document("$elemMatch", new Document("id", "a").append("version", 1L)));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set)
+            .containsEntry("components.$.width", 4)
+            .containsEntry("components.$.properties.title", "Sales")
+            .containsEntry("components.$.properties.limit", "10")
+            .containsKeys("components.$.updatedAt", "updatedAt");
+        assertThat(update.getValue().getUpdateObject().get("$unset", Document.class))
+            .containsOnlyKeys("components.$.properties.legacy");
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class))
+            .containsOnlyKeys("components.$.version", "version");
+        verify(pageSnapshotService).evict("p1");
+    }
+
+    @Test
+    void componentPatchRejectsValuesOfTheWrongType() {
+        List<Map<String, Object>> invalid = List.of(
+            Map.of("xPosition", "abc"),
+            Map.of("width", Map.of("a", 1)),
+            Map.of("height", 1.5),
+            Map.of("name", 7),
+            Map.of("properties", "x"),
+            Map.of("properties", Map.of("nested", Map.of("a", 1))),
+            Map.of("properties", Map.of("list", List.of(1, 2))));
+
+        invalid.forEach(changes -> assertThatThrownBy(() -> service.updateComponent("p1", "a", changes, null, null))
+            .as("%s", changes)
+            .isInstanceOf(IllegalArgumentException.class));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+            any(FindAndModifyOptions.class), eq(Page.class));
+    }
+
+    @Test
+    void failedComponentPatchIsAConflictOnlyWhenTheComponentStillExists() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(null);
+        when(mongoTemplate.exists(any(Query.class), eq(Page.class))).thenReturn(true, false);
+
+        assertThatThrownBy(() -> service.updateComponent("p1", "a", Map.of("width", 1), 1L, null))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(service.updateComponent("p1", "a", Map.of("width", 1), 1L, null)).isEmpty();
+
+        ArgumentCaptor<Query> exists = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).exists(exists.capture(), eq(Page.class));
+        // The existence check ignores versions: it only asks whether the page still has the component
+        assertThat(exists.getValue().getQueryObject())
+            .isEqualTo(new Document("id", "p1").append("components.id", "a"));
+        verify(pageSnapshotService, never()).evict("p1");
+    }
+
+    @Test
+    void addComponentPushesItWithAnIdAndVersion() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(page(2L));
+        Page.UIComponent component = component(null, 9L);
+
+        Page result = service.addComponent("p1", component, 1L).orElseThrow();
+
+        assertThat(component.getId()).isNotBlank();
+        assertThat(component.getVersion()).isZero();
+        assertThat(result.getComponents()).containsExactly(component);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Page.class));
+        assertThat(update.getValue().getUpdateObject().get("$push", Document.class))
+            .containsEntry("components", component);
+    }
+
+    @Test
+    void removeComponentPullsItById() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Page.class)))
+            .thenReturn(page(4L), (Page) null);
+        when(mongoTemplate.exists(any(Query.class), eq(Page.class))).thenReturn(false);
+
+        assertThat(service.removeComponent("p1", "a", 3L)).isPresent();
+        // Already removed: a 404, not a conflict
+        assertThat(service.removeComponent("p1", "a", null)).isEmpty();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(query.capture(), update.capture(),
+            any(FindAndModifyOptions.class), eq(Page.class));
+        assertThat(query.getAllValues().get(0).getQueryObject()).containsEntry("version", 3L);
+        Object pulled = update.getAllValues().get(0).getUpdateObject().get("$pull", Document.class).get("components");
+        assertThat(pulled).isInstanceOfSatisfying(Query.class,
+            pull -> assertThat(pull.getQueryObject()).isEqualTo(new Document("id", "a")));
+    }
+
+    private static List<Object> nullable(Object value) {
+        List<Object> values = new ArrayList<>();
+        values.add(value);
+        values.add(null);
+        return values;
+    }
+
+    private static Page page(Long version, Page.UIComponent... components) {
+        Page page = new Page("page", null);
+        page.setId("p1");
+        page.setVersion(version);
+        page.setComponents(new ArrayList<>(List.of(components)));
+        return page;
+    }
+
+    private static Page.UIComponent component(String id, Long version) {
+        Page.UIComponent component = new Page.UIComponent();
+        component.setId(id);
+        component.setVersion(version);
+        return component;
+    }
+
+    private static ComponentEdit edit(String id, Long version, Map<String, Object> changes) {
+        ComponentEdit edit = new ComponentEdit();
+        edit.setId(id);
+        edit.setVersion(version);
+        edit.setChanges(changes);
+        return edit;
+    }
+}
@@ -0,0 +1,96 @@
+package com.dynamicui.backend.service;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.repository.PageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageSnapshotServiceTest {
+
+    private final PageRepository pageRepository = mock(PageRepository.class);
+    private final PageSnapshotService service = new PageSnapshotService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "pageRepository", pageRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxEntries", 10);
+        ReflectionTestUtils.setField(service, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceNewerSnapshot() {
+        // A reader loaded version 1 while a save of version 2 was being refreshed
+        when(pageRepository.findByIdAndIsPublished("p1", true)).thenAnswer(invocation -> {
+            service.refresh(page("p1", 2L, "new"));
+            return Optional.of(page("p1", 1L, "old"));
+        });
+
+        PageSnapshotService.PageSnapshot served = service.getPublished("p1").orElseThrow();
+
+        assertThat(served.version()).isEqualTo(2L);
+        assertThat(new String(service.getPublished("p1").orElseThrow().json())).contains("new");
+    }
+
+    @Test
+    void freshSnapshotIsServedWithoutQuery() {
+        service.refresh(page("p1", 1L, "v1"));
+
+        assertThat(service.getPublished("p1")).isPresent();
+        verify(pageRepository, never()).findPublishedVersionById("p1");
+        verify(pageRepository, never()).findByIdAndIsPublished("p1", true);
+    }
+
+    @Test
+    void expiredSnapshotIsRebuiltWhenAnotherInstanceChangedThePage() {
+        ReflectionTestUtils.setField(service, "ttlMs", 0L);
+        service.refresh(page("p1", 1L, "v1"));
+        when(pageRepository.findPublishedVersionById("p1")).thenReturn(Optional.of(page("p1", 2L, null)));
+        when(pageRepository.findByIdAndIsPublished("p1", true)).thenReturn(Optional.of(page("p1", 2L, "v2")));
+
+        PageSnapshotService.PageSnapshot served = service.getPublished("p1").orElseThrow();
+
+        assertThat(served.version()).isEqualTo(2L);
+        assertThat(new String(served.json())).contains("v2");
+    }
+
+    @Test
+    void expiredSnapshotIsKeptWhenTheVersionIsUnchanged() {
+        ReflectionTestUtils.setField(service, "ttlMs", 0L);
+        service.refresh(page("p1", 1L, "v1"));
+        when(pageRepository.findPublishedVersionById("p1")).thenReturn(Optional.of(page("p1", 1L, null)));
+
+        assertThat(service.getPublished("p1").orElseThrow().version()).isEqualTo(1L);
+        verify(pageRepository, never()).findByIdAndIsPublished("p1", true);
+    }
+
+    @Test
+    void expiredSnapshotIsDroppedWhenThePageWasUnpublishedElsewhere() {
+        ReflectionTestUtils.setField(service, "ttlMs", 0L);
+        service.refresh(page("p1", 1L, "v1"));
+        when(pageRepository.findPublishedVersionById("p1")).thenReturn(Optional.empty());
+
+        assertThat(service.getPublished("p1")).isEmpty();
+        when(pageRepository.findByIdAndIsPublished("p1", true)).thenReturn(Optional.empty());
+        assertThat(service.getPublished("p1")).isEmpty();
+    }
+
+    private static Page page(String id, Long version, String name) {
+        Page page = new Page(name, null);
+        page.setId(id);
+        page.setVersion(version);
+        page.setIsPublished(true);
+        return page;
+    }
+}
@@ -0,0 +1,36 @@
+package com.dynamicui.bench;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link DataGenerationJmh} through JMH with the GC profiler: rows/sec is the score,
+ * bytes/row is gc.alloc.rate.norm. Needs no MongoDB. Run with {@code mvn -Pbenchmark test};
+ * {@code -Dbench.forks}, {@code -Dbench.warmups} and {@code -Dbench.iterations} shorten a run.
+ */
+@Tag("benchmark")
+class DataGenerationBenchmark {
+
+    @Test
+    void rowsPerSecondAndBytesPerRow() throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(DataGenerationJmh.class.getName())
+            .addProfiler(GCProfiler.class)
+            .forks(Integer.getInteger("bench.forks", 1))
+            .warmupIterations(Integer.getInteger("bench.warmups", 3))
+            .warmupTime(TimeValue.seconds(2))
+            .measurementIterations(Integer.getInteger("bench.iterations", 5))
+            .measurementTime(TimeValue.seconds(2))
+            .build();
+
+        assertThat(new Runner(options).run()).isNotEmpty();
+    }
+}
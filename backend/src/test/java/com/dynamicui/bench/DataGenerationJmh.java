@@ -0,0 +1,97 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.service.DataGenerationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH state and benchmarks for the synthetic data generator; one operation is one row, so
+ * the score is rows per second and, with the GC profiler, gc.alloc.rate.norm is bytes
+ * allocated per row. Launched by {@link DataGenerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DataGenerationJmh {
+
+    static final int ROWS = 100_000;
+
+    // 1 measures the generator itself; 0 uses every core
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private DataGenerationService service;
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new DataGenerationService();
+        ReflectionTestUtils.setField(service, "chunkRows", 8192);
+        ReflectionTestUtils.setField(service, "parallelism", parallelism);
+        ReflectionTestUtils.invokeMethod(service, "startPool");
+
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "number");
+        columns.put("name", "string");
+        columns.put("email", "string");
+        columns.put("price", "number");
+        columns.put("category", "string");
+        columns.put("inStock", "boolean");
+        columns.put("createdAt", "date");
+        columns.put("notes", "string");
+        dataset = new Dataset("bench", null, columns);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "shutdownPool");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void streamToResponse(Blackhole blackhole) throws IOException {
+        service.writeDataForDataset(dataset, ROWS, 42L, 0, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void materializeRows(Blackhole blackhole) {
+        blackhole.consume(service.generateDataForDataset(dataset, ROWS, 42L, 0));
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import com.dynamicui.service.DatasetCache;
+import com.dynamicui.service.DatasetReferenceResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * p50/p99 of loading a component listing and reading each component's dataset: one lookup
+ * per reference, as with an eager {@code @DBRef} or Jackson touching each lazy proxy, versus
+ * one batched {@code $in} through DatasetReferenceResolver. The dataset cache is cleared
+ * before every batched run so both paths reach MongoDB.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "mongo.index-advisor.enabled=false"
+})
+class DatasetReferenceBenchmark extends MongoBenchmarkSupport {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DatasetReferenceResolver datasetReferenceResolver;
+
+    @Autowired
+    private DatasetCache datasetCache;
+
+    @Test
+    void perReferenceVersusBatchedResolution() {
+        int datasets = intProperty("bench.datasets", 50);
+        int components = intProperty("bench.components", 1_000);
+        int iterations = intProperty("bench.iterations", 50);
+        mongoTemplate.dropCollection(UIComponent.class);
+        mongoTemplate.dropCollection(Dataset.class);
+
+        List<Dataset> saved = new ArrayList<>();
+        for (int i = 0; i < datasets; i++) {
+            saved.add(mongoTemplate.insert(new Dataset("Bench " + i, null, Map.of("value", "number"))));
+        }
+        List<UIComponent> rows = new ArrayList<>();
+        for (int i = 0; i < components; i++) {
+            UIComponent component = new UIComponent();
+            component.setName("component " + i);
+            component.setType("chart");
+            component.setDataset(saved.get(i % datasets));
+            rows.add(component);
+        }
+        mongoTemplate.insertAll(rows);
+
+        Runnable perReference = () -> {
+            // Reading through each proxy loads its dataset on its own
+            List<UIComponent> loaded = mongoTemplate.findAll(UIComponent.class);
+            loaded.forEach(component -> assertThat(component.getDataset().getName()).isNotNull());
+        };
+        Runnable batched = () -> {
+            datasetCache.invalidateAll();
+            List<UIComponent> loaded = mongoTemplate.findAll(UIComponent.class);
+            datasetReferenceResolver.resolve(loaded);
+            loaded.forEach(component -> assertThat(component.getDataset().getName()).isNotNull());
+        };
+
+        // Warm up connections and the JIT
+        LatencyRecorder.measure("warm-up", 5, perReference);
+        LatencyRecorder.measure("warm-up", 5, batched);
+
+        System.out.println(components + " components referencing " + datasets + " datasets:");
+        System.out.println(LatencyRecorder.measure("one lookup per reference", iterations, perReference));
+        System.out.println(LatencyRecorder.measure("DatasetReferenceResolver", iterations, batched));
+    }
+}
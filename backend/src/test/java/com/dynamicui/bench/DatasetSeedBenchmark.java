@@ -0,0 +1,47 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.service.DatasetSeedService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput (docs/s) of DatasetSeedService for a range of writer counts and batch
+ * sizes, each run into a freshly dropped collection.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class DatasetSeedBenchmark extends MongoBenchmarkSupport {
+
+    @Autowired
+    private DatasetSeedService datasetSeedService;
+
+    @Test
+    void docsPerSecondByWritersAndBatchSize() {
+        int rows = intProperty("bench.rows", 1_000_000);
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "number");
+        columns.put("name", "string");
+        columns.put("email", "string");
+        columns.put("price", "number");
+        columns.put("category", "string");
+        columns.put("createdAt", "date");
+        Dataset dataset = new Dataset("Bench Seed", null, columns);
+
+        System.out.println("Seeding " + rows + " rows:");
+        for (int writers : new int[] {1, 2, 4, 8}) {
+            for (int batchSize : new int[] {1_000, 5_000, 20_000}) {
+                Map<String, Object> report = datasetSeedService.seed(
+                    dataset, "bench_seed", rows, 1L, batchSize, writers, true);
+                assertThat(report).containsEntry("rows", (long) rows);
+                System.out.printf("writers=%-2d batchSize=%-6d %9d docs/s  (%d ms)%n",
+                    writers, batchSize, report.get("docsPerSecond"), report.get("elapsedMs"));
+            }
+        }
+    }
+}
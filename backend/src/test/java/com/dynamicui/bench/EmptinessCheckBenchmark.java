@@ -0,0 +1,79 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.service.MongoQueryService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * p50/p99 of a 20-row find preceded by the old countDocuments() emptiness check, by the
+ * single-document probe, and through MongoQueryService (probe result cached per collection).
+ * The result cache and coalescing are off so every call reaches MongoDB.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "mongo.query.cache.enabled=false",
+    "mongo.query.coalescing.enabled=false",
+    "mongo.index-advisor.enabled=false"
+})
+class EmptinessCheckBenchmark extends MongoBenchmarkSupport {
+
+    private static final String COLLECTION = "bench_emptiness";
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    @Test
+    void countDocumentsVersusProbe() {
+        int rows = intProperty("bench.rows", 1_000_000);
+        int iterations = intProperty("bench.iterations", 300);
+        MongoCollection<Document> collection = mongoClient.getDatabase(DATABASE).getCollection(COLLECTION);
+        collection.drop();
+        insertRows(collection, rows, i -> new Document("seq", i)
+            .append("group", i % 100)
+            .append("payload", "x".repeat(200)));
+
+        Document filter = new Document("group", 7);
+        MongoQuery query = new MongoQuery(COLLECTION, Map.of("group", 7));
+        query.setLimit(20);
+
+        Runnable count = () -> {
+            collection.countDocuments();
+            drain(collection, filter);
+        };
+        Runnable probe = () -> {
+            collection.find().projection(new Document("_id", 1)).limit(1).first();
+            drain(collection, filter);
+        };
+        Runnable service = () -> assertThat(mongoQueryService.executeQuery(query)).hasSize(20);
+
+        // Warm up connections, the plan cache and the JIT
+        LatencyRecorder.measure("warm-up", 50, count);
+        LatencyRecorder.measure("warm-up", 50, probe);
+        LatencyRecorder.measure("warm-up", 50, service);
+
+        System.out.println("Emptiness check before a 20-row find over " + rows + " documents:");
+        System.out.println(LatencyRecorder.measure("countDocuments() + find", iterations, count));
+        System.out.println(LatencyRecorder.measure("limit(1) probe + find", iterations, probe));
+        System.out.println(LatencyRecorder.measure("MongoQueryService.executeQuery", iterations, service));
+    }
+
+    private static void drain(MongoCollection<Document> collection, Document filter) {
+        try (MongoCursor<Document> cursor = collection.find(filter).limit(20).iterator()) {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.dynamicui.bench;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps a fixed number of HTTP requests in flight against a running server and records the
+ * latency of each, so that server stacks can be compared at the same concurrency.
+ */
+public final class HttpLoadGenerator {
+
+    private HttpLoadGenerator() {}
+
+    public record Result(LatencyRecorder latencies, long failures, double requestsPerSecond) {
+        @Override
+        public String toString() {
+            return String.format("%s  failures=%d  throughput=%.1f req/s", latencies, failures, requestsPerSecond);
+        }
+    }
+
+    /**
+     * Sends {@code requests} requests built by {@code request}, at most {@code concurrency} at
+     * a time; a response other than 2xx counts as a failure and is not recorded.
+     */
+    public static Result run(String label, int concurrency, int requests, IntFunction<HttpRequest> request)
+            throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(label);
+        AtomicLong failures = new AtomicLong();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                 .executor(executor)
+                 .connectTimeout(Duration.ofSeconds(30))
+                 .build()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                HttpRequest next = request.apply(i);
+                long sent = System.nanoTime();
+                client.sendAsync(next, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error == null && response.statusCode() / 100 == 2) {
+                            recorder.record(System.nanoTime() - sent);
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+            }
+            inFlight.acquire(concurrency);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result(recorder, failures.get(), recorder.count() / seconds);
+    }
+}
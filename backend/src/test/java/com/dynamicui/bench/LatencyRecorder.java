@@ -0,0 +1,57 @@
+package com.dynamicui.bench;
+
+import java.util.Arrays;
+
+/**
+ * Collects per-operation latencies and reports percentiles.
+ */
+public class LatencyRecorder {
+
+    private final String label;
+    private long[] samples = new long[1024];
+    private int count;
+
+    public LatencyRecorder(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Runs {@code operation} {@code iterations} times and records each run.
+     */
+    public static LatencyRecorder measure(String label, int iterations, Runnable operation) {
+        LatencyRecorder recorder = new LatencyRecorder(label);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            recorder.record(System.nanoTime() - start);
+        }
+        return recorder;
+    }
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s n=%-7d p50=%9.3f ms  p99=%9.3f ms  max=%9.3f ms",
+            label, count(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
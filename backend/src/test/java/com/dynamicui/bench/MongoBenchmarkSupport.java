@@ -0,0 +1,16 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.support.MongoContainerSupport;
+import org.junit.jupiter.api.Tag;
+
+/**
+ * Base for benchmarks against a MongoDB container. Run them with {@code mvn -Pbenchmark test};
+ * sizes are overridden with system properties, e.g. {@code -Dbench.rows=1000000}.
+ */
+@Tag("benchmark")
+public abstract class MongoBenchmarkSupport extends MongoContainerSupport {
+
+    protected static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+}
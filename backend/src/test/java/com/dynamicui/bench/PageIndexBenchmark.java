@@ -0,0 +1,108 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.backend.repository.PageRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * p50/p99 of the PageRepository lookups over a generated pages collection (1M documents by
+ * default), first with only the _id index and then with the indexes declared on
+ * {@link Page}, built from the same mapping metadata Spring uses at startup.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "mongo.index-advisor.enabled=false",
+    "page.snapshot.enabled=false"
+})
+class PageIndexBenchmark extends MongoBenchmarkSupport {
+
+    private static final String[] COMPONENT_TYPES = {"chart", "table", "form", "text", "image"};
+    // One page in this many has a component of a rare type, so that lookup returns few pages
+    private static final int RARE_EVERY = 10_000;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private PageRepository pageRepository;
+
+    @Test
+    void repositoryLookupsBeforeAndAfterIndexes() {
+        int pages = intProperty("bench.pages", 1_000_000);
+        int iterations = intProperty("bench.iterations", 50);
+        String collectionName = mongoTemplate.getCollectionName(Page.class);
+        MongoCollection<Document> collection = mongoClient.getDatabase(DATABASE).getCollection(collectionName);
+        collection.drop();
+        long base = 1_700_000_000_000L;
+        insertRows(collection, pages, i -> new Document("_id", "p" + i)
+            .append("name", "Page " + i)
+            .append("description", "Generated page " + i)
+            .append("is_published", i % 2 == 0)
+            .append("created_at", new Date(base + i * 1_000L))
+            .append("updated_at", new Date(base + i * 1_000L))
+            .append("version", 0L)
+            .append("components", List.of(
+                new Document("id", "c" + i + "-0")
+                    .append("type", i % RARE_EVERY == 0 ? "map" : COMPONENT_TYPES[i % COMPONENT_TYPES.length]),
+                new Document("id", "c" + i + "-1").append("type", COMPONENT_TYPES[(i + 1) % COMPONENT_TYPES.length]))));
+
+        Map<String, Runnable> lookups = new LinkedHashMap<>();
+        String publishedId = "p" + (pages / 2 - pages / 2 % 2);
+        lookups.put("findByIdAndIsPublished", () ->
+            assertThat(pageRepository.findByIdAndIsPublished(publishedId, true)).isPresent());
+        lookups.put("findTopByOrderByUpdatedAtDesc", () ->
+            assertThat(pageRepository.findTopByOrderByUpdatedAtDesc()).isPresent());
+        lookups.put("findSummariesByIsPublished (page 0)", () ->
+            assertThat(pageRepository.findSummariesByIsPublished(true,
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "updatedAt"))).getContent()).hasSize(50));
+        lookups.put("findByComponentType (rare)", () ->
+            assertThat(pageRepository.findByComponentType("map")).isNotEmpty());
+        lookups.put("findByNameContainingIgnoreCase", () ->
+            assertThat(pageRepository.findByNameContainingIgnoreCase("page " + (pages - 1))).isNotEmpty());
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Page.class);
+        indexOps.dropAllIndexes();
+        System.out.println("Page lookups over " + pages + " pages, _id index only:");
+        // Fewer runs: without indexes most lookups scan the whole collection
+        measure(lookups, Math.max(1, iterations / 10));
+
+        long start = System.nanoTime();
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Page.class)
+            .forEach(indexOps::ensureIndex);
+        System.out.printf("Built %d declared indexes in %d ms%n",
+            indexOps.getIndexInfo().size() - 1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Page lookups over " + pages + " pages, declared indexes:");
+        measure(lookups, iterations);
+    }
+
+    private static void measure(Map<String, Runnable> lookups, int iterations) {
+        lookups.forEach((label, lookup) -> {
+            // Warm up the plan cache and the JIT
+            LatencyRecorder.measure("warm-up", 2, lookup);
+            System.out.println(LatencyRecorder.measure(label, iterations, lookup));
+        });
+    }
+}
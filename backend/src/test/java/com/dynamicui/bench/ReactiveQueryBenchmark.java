@@ -0,0 +1,72 @@
+package com.dynamicui.bench;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p50/p99 of the blocking /api/mongo/query endpoint against the reactive
+ * /api/reactive/mongo/query endpoint, with the same number of unindexed (slow) queries in
+ * flight on both. The result cache and coalescing are off so every request reaches MongoDB.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "app.reactive.enabled=true",
+    "mongo.query.cache.enabled=false",
+    "mongo.query.coalescing.enabled=false",
+    "mongo.index-advisor.enabled=false"
+})
+class ReactiveQueryBenchmark extends MongoBenchmarkSupport {
+
+    private static final String COLLECTION = "bench_reactive";
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void blockingVersusReactiveUnderConcurrency() throws InterruptedException {
+        int rows = intProperty("bench.rows", 200_000);
+        int concurrency = intProperty("bench.concurrency", 1_000);
+        int requests = intProperty("bench.requests", 10_000);
+        MongoCollection<Document> collection = mongoClient.getDatabase(DATABASE).getCollection(COLLECTION);
+        collection.drop();
+        insertRows(collection, rows, i -> new Document("seq", i)
+            .append("bucket", i % 1_000)
+            .append("payload", "x".repeat(100)));
+
+        // No index on bucket, so each request scans the collection
+        IntFunction<HttpRequest> blocking = i -> query("/api/mongo/query", i);
+        IntFunction<HttpRequest> reactive = i -> query("/api/reactive/mongo/query", i);
+
+        HttpLoadGenerator.run("warm-up", 50, 500, blocking);
+        HttpLoadGenerator.run("warm-up", 50, 500, reactive);
+
+        System.out.println(requests + " slow queries over " + rows + " documents, " + concurrency + " in flight:");
+        HttpLoadGenerator.Result blockingResult = HttpLoadGenerator.run("blocking (servlet)", concurrency, requests, blocking);
+        System.out.println(blockingResult);
+        HttpLoadGenerator.Result reactiveResult = HttpLoadGenerator.run("reactive", concurrency, requests, reactive);
+        System.out.println(reactiveResult);
+        assertThat(reactiveResult.latencies().count()).isPositive();
+    }
+
+    private HttpRequest query(String path, int i) {
+        String body = "{\"collection\":\"" + COLLECTION + "\",\"filter\":{\"bucket\":" + (i % 1_000) + "},\"limit\":50}";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dynamicui.bench;
+
+import com.dynamicui.DynamicUiApplication;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p50/p99 of /api/mongo/query with 5k slow (unindexed) queries in flight,
+ * once with Tomcat on its platform-thread pool and once on virtual threads. Each mode gets
+ * its own application instance against the same MongoDB container. The result cache and
+ * coalescing are off so every request reaches MongoDB.
+ */
+class VirtualThreadBenchmark extends MongoBenchmarkSupport {
+
+    private static final String COLLECTION = "bench_virtual_threads";
+
+    @Test
+    void platformVersusVirtualThreads() throws InterruptedException {
+        int rows = intProperty("bench.rows", 200_000);
+        int concurrency = intProperty("bench.concurrency", 5_000);
+        int requests = intProperty("bench.requests", 20_000);
+        String uri = MONGO.getReplicaSetUrl(DATABASE);
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoCollection<Document> collection = client.getDatabase(DATABASE).getCollection(COLLECTION);
+            collection.drop();
+            insertRows(collection, rows, i -> new Document("seq", i)
+                .append("bucket", i % 1_000)
+                .append("payload", "x".repeat(100)));
+        }
+
+        System.out.println(requests + " slow queries over " + rows + " documents, " + concurrency + " in flight:");
+        HttpLoadGenerator.Result platform = run(uri, false, concurrency, requests);
+        System.out.println(platform);
+        HttpLoadGenerator.Result virtual = run(uri, true, concurrency, requests);
+        System.out.println(virtual);
+        assertThat(virtual.latencies().count()).isPositive();
+    }
+
+    private HttpLoadGenerator.Result run(String uri, boolean virtualThreads, int concurrency, int requests)
+            throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DynamicUiApplication.class)
+                .properties(
+                    "server.port=0",
+                    "spring.data.mongodb.uri=" + uri,
+                    "spring.threads.virtual.enabled=" + virtualThreads,
+                    "mongo.query.cache.enabled=false",
+                    "mongo.query.coalescing.enabled=false",
+                    "mongo.index-advisor.enabled=false")
+                .run()) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            String label = virtualThreads ? "virtual threads" : "platform threads (Tomcat pool)";
+            HttpLoadGenerator.run("warm-up", 50, 500, i -> query(port, i));
+            return HttpLoadGenerator.run(label, concurrency, requests, i -> query(port, i));
+        }
+    }
+
+    private static HttpRequest query(int port, int i) {
+        // No index on bucket, so each request scans the collection
+        String body = "{\"collection\":\"" + COLLECTION + "\",\"filter\":{\"bucket\":" + (i % 1_000) + "},\"limit\":50}";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/mongo/query"))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.dynamicui.config;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveMongoConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(MongoAutoConfiguration.class))
+        .withUserConfiguration(RepositoryPackage.class, ReactiveMongoConfig.class);
+
+    @Test
+    void noReactiveClientByDefault() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(MongoClient.class)
+            .hasSingleBean(com.mongodb.client.MongoClient.class));
+    }
+
+    @Test
+    void reactiveClientWhenEnabled() {
+        runner.withPropertyValues("app.reactive.enabled=true")
+            .run(context -> assertThat(context).hasSingleBean(MongoClient.class));
+    }
+
+    // Reactive repositories are scanned for in the auto-configuration package
+    @Configuration
+    @AutoConfigurationPackage
+    static class RepositoryPackage {
+    }
+}
@@ -0,0 +1,68 @@
+package com.dynamicui.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOneValuePerLineWithoutSeparators() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+
+        writer.write(Map.of("a", 1));
+        writer.write(Map.of("b", 2));
+        writer.write(Map.of("$success", true));
+        writer.flush();
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+            .isEqualTo("{\"a\":1}\n{\"b\":2}\n{\"$success\":true}\n");
+    }
+
+    @Test
+    void leavesTheStreamOpen() throws IOException {
+        boolean[] closed = {false};
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, out);
+        writer.write(Map.of("a", 1));
+        writer.flush();
+
+        assertThat(closed[0]).isFalse();
+    }
+
+    @Test
+    void reportsWriteFailuresAsUncheckedIoExceptions() throws IOException {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, broken);
+
+        assertThatThrownBy(() -> {
+            // The generator buffers, so the failure surfaces once the buffer is written out
+            for (int i = 0; i < 10_000; i++) {
+                writer.write(Map.of("row", i));
+            }
+            writer.flush();
+        }).isInstanceOfAny(UncheckedIOException.class, IOException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.dynamicui.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceVersionTest {
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void listsHaveNoLastModified() {
+        ResourceVersion version = ResourceVersion.ofList(3, UPDATED, "list");
+
+        assertThat(version.lastModified()).isNegative();
+        assertThat(version.ok("body").getHeaders().getLastModified()).isEqualTo(-1);
+        assertThat(version.ok("body").getHeaders().getETag()).isEqualTo(version.etag());
+    }
+
+    @Test
+    void ifModifiedSinceDoesNotValidateAList() {
+        ResourceVersion version = ResourceVersion.ofList(3, UPDATED, "list");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/datasets");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis());
+
+        assertThat(version.notModified(new ServletWebRequest(request))).isFalse();
+    }
+
+    @Test
+    void fieldOrderDoesNotChangeTheEtag() {
+        Set<String> forward = new LinkedHashSet<>(List.of("name", "type", "id"));
+        Set<String> backward = new LinkedHashSet<>(List.of("id", "type", "name"));
+
+        assertThat(ResourceVersion.ofList(3, UPDATED, "list", forward).etag())
+            .isEqualTo(ResourceVersion.ofList(3, UPDATED, "list", backward).etag());
+        // Also when wrapped, as the component listing passes its parameters as a list
+        assertThat(ResourceVersion.ofList(3, UPDATED, List.of("list", forward)).etag())
+            .isEqualTo(ResourceVersion.ofList(3, UPDATED, List.of("list", backward)).etag());
+        assertThat(ResourceVersion.ofList(3, UPDATED, "list", Set.of("name")).etag())
+            .isNotEqualTo(ResourceVersion.ofList(3, UPDATED, "list", Set.of("type")).etag());
+    }
+}
@@ -0,0 +1,118 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AggregationPipelineValidatorTest {
+
+    @Test
+    void acceptsReadOnlyStagesInOrder() {
+        List<Document> stages = AggregationPipelineValidator.validate(List.of(
+            Map.of("$match", Map.of("status", "active")),
+            Map.of("$group", Map.of("_id", "$region", "total", Map.of("$sum", "$amount"))),
+            Map.of("$sort", Map.of("total", -1)),
+            Map.of("$limit", 10)));
+
+        assertThat(stages).extracting(stage -> stage.keySet().iterator().next())
+            .containsExactly("$match", "$group", "$sort", "$limit");
+        assertThat(stages.get(3).get("$limit")).isEqualTo(10);
+    }
+
+    @Test
+    void rejectsWritingAndUnlistedStages() {
+        for (String stage : List.of("$out", "$merge", "$lookup", "$unionWith")) {
+            assertThatThrownBy(() -> AggregationPipelineValidator.validate(
+                List.of(Map.of(stage, "other"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported pipeline stage: " + stage);
+        }
+    }
+
+    @Test
+    void rejectsJavaScriptOperatorsAtAnyDepth() {
+        Map<String, Object> nested = Map.of("$match", Map.of("$and", List.of(
+            Map.of("a", 1),
+            Map.of("$expr", Map.of("$function", Map.of("body", "return true"))))));
+
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(List.of(nested)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Operator not allowed in pipeline: $function");
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(
+            List.of(Map.of("$match", Map.of("$where", "sleep(1000)")))))
+            .hasMessage("Operator not allowed in pipeline: $where");
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(List.of(
+            Map.of("$group", Map.of("_id", "$a", "x", Map.of("$accumulator", Map.of()))))))
+            .hasMessage("Operator not allowed in pipeline: $accumulator");
+    }
+
+    @Test
+    void requiresExactlyOneOperatorPerStage() {
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(
+            List.of(Map.of("$match", Map.of(), "$sort", Map.of("a", 1)))))
+            .hasMessage("Each pipeline stage must have exactly one operator");
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(List.of(Map.of())))
+            .hasMessage("Each pipeline stage must have exactly one operator");
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(Collections.singletonList(null)))
+            .hasMessage("Each pipeline stage must have exactly one operator");
+    }
+
+    @Test
+    void requiresAPositiveNumericLimit() {
+        for (Object limit : List.of(0, -5, "10")) {
+            assertThatThrownBy(() -> AggregationPipelineValidator.validate(List.of(Map.of("$limit", limit))))
+                .hasMessage("$limit must be a positive number");
+        }
+    }
+
+    @Test
+    void capsTheNumberOfStages() {
+        List<Map<String, Object>> pipeline = Collections.nCopies(
+            AggregationPipelineValidator.MAX_STAGES + 1, Map.of("$limit", 1));
+
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(pipeline))
+            .hasMessage("Pipeline may contain at most 20 stages");
+        assertThat(AggregationPipelineValidator.validate(
+            pipeline.subList(0, AggregationPipelineValidator.MAX_STAGES))).hasSize(20);
+    }
+
+    @Test
+    void queryFilterBecomesALeadingMatch() {
+        MongoQuery query = new MongoQuery("orders", Map.of("status", "active"));
+        query.setPipeline(List.of(Map.of("$group", Map.of("_id", "$region", "n", Map.of("$sum", 1)))));
+
+        List<Document> stages = AggregationPipelineValidator.validate(query);
+
+        assertThat(stages).containsExactly(
+            new Document("$match", new Document("status", "active")),
+            new Document("$group", new Document("_id", "$region").append("n", new Document("$sum", 1))));
+    }
+
+    @Test
+    void rejectsFindOptionsOnAggregationQueries() {
+        MongoQuery query = new MongoQuery("orders", null);
+        query.setPipeline(List.of(Map.of("$match", Map.of("status", "active"))));
+        query.setSort(Map.of("total", -1));
+        query.setLimit(10);
+
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(query))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Aggregation queries cannot set sort, limit");
+    }
+
+    @Test
+    void rejectsJavaScriptInTheQueryFilter() {
+        MongoQuery query = new MongoQuery("orders", Map.of("$where", "sleep(1000)"));
+        query.setPipeline(List.of(Map.of("$limit", 5)));
+
+        assertThatThrownBy(() -> AggregationPipelineValidator.validate(query))
+            .hasMessage("Operator not allowed in pipeline: $where");
+    }
+}
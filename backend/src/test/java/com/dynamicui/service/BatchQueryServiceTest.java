@@ -0,0 +1,133 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.BatchQueryRequest;
+import com.dynamicui.model.MongoQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchQueryServiceTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MongoQueryService mongoQueryService = mock(MongoQueryService.class);
+    private final BatchQueryService service = new BatchQueryService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "mongoQueryService", mongoQueryService);
+        ReflectionTestUtils.setField(service, "mongoQueryExecutor", executor);
+        ReflectionTestUtils.setField(service, "maxQueries", 100);
+        ReflectionTestUtils.setField(service, "maxParallelism", 4);
+        ReflectionTestUtils.setField(service, "defaultDeadlineMs", 10_000L);
+        ReflectionTestUtils.setField(service, "maxDeadlineMs", 30_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resultsFollowRequestOrder() {
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            MongoQuery query = invocation.getArgument(0);
+            // Earlier queries finish last
+            Thread.sleep(60 - 10L * Integer.parseInt(query.getCollection().substring(1)));
+            return List.of(Map.of("collection", query.getCollection()));
+        });
+
+        List<Map<String, Object>> results = service.executeBatch(batch(null, "c0", "c1", "c2", "c3", "c4"));
+
+        assertThat(results).extracting(result -> (Object) ((List<?>) result.get("data")).get(0))
+            .containsExactly(Map.of("collection", "c0"), Map.of("collection", "c1"), Map.of("collection", "c2"),
+                Map.of("collection", "c3"), Map.of("collection", "c4"));
+    }
+
+    @Test
+    void failedQueryIsReportedInItsOwnSlot() {
+        when(mongoQueryService.executeQuery(any())).thenReturn(List.of(Map.of("_id", 1)));
+        when(mongoQueryService.executeQuery(argThat(query -> query != null && "bad".equals(query.getCollection()))))
+            .thenThrow(new IllegalArgumentException("Unsupported stage"));
+
+        List<Map<String, Object>> results = service.executeBatch(batch(null, "a", "bad", "b"));
+
+        assertThat(results).extracting(result -> result.get("success")).containsExactly(true, false, true);
+        assertThat(results.get(1)).containsEntry("error", "Unsupported stage");
+        assertThat(results.get(2)).containsEntry("count", 1);
+    }
+
+    @Test
+    void slowQueryTimesOutWithoutBeingInterrupted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicLong maxTimeMs = new AtomicLong();
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            MongoQuery query = invocation.getArgument(0);
+            if ("slow".equals(query.getCollection())) {
+                maxTimeMs.set(query.getMaxTimeMs());
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+            return List.of();
+        });
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> results = service.executeBatch(batch(200L, "fast", "slow"));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2_000);
+        assertThat(results.get(0)).containsEntry("success", true);
+        assertThat(results.get(1)).containsEntry("success", false)
+            .containsEntry("error", "Deadline of 200ms exceeded");
+        // The server stops the query by the deadline
+        assertThat(maxTimeMs.get()).isBetween(1L, 200L);
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted).isFalse();
+    }
+
+    @Test
+    void requestedDeadlineIsCappedAndTightensEachQuery() {
+        ReflectionTestUtils.setField(service, "maxDeadlineMs", 500L);
+        AtomicLong maxTimeMs = new AtomicLong();
+        when(mongoQueryService.executeQuery(any())).thenAnswer(invocation -> {
+            maxTimeMs.set(((MongoQuery) invocation.getArgument(0)).getMaxTimeMs());
+            return List.of();
+        });
+        BatchQueryRequest request = batch(3_600_000L, "a");
+        request.getQueries().get(0).setMaxTimeMs(20_000L);
+
+        service.executeBatch(request);
+
+        assertThat(maxTimeMs.get()).isBetween(1L, 500L);
+        // The caller's query is left as sent
+        assertThat(request.getQueries().get(0).getMaxTimeMs()).isEqualTo(20_000L);
+    }
+
+    private static BatchQueryRequest batch(Long deadlineMs, String... collections) {
+        BatchQueryRequest request = new BatchQueryRequest();
+        request.setQueries(Arrays.stream(collections).map(c -> new MongoQuery(c, null)).toList());
+        request.setDeadlineMs(deadlineMs);
+        return request;
+    }
+}
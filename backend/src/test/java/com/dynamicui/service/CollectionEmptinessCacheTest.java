@@ -0,0 +1,45 @@
+package com.dynamicui.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CollectionEmptinessCacheTest {
+
+    @Test
+    void onlyNonEmptyProbesAreRemembered() {
+        CollectionEmptinessCache cache = cache(60_000);
+
+        cache.record("orders", false);
+        cache.record("users", true);
+
+        assertThat(cache.isKnownNonEmpty("orders")).isTrue();
+        assertThat(cache.isKnownNonEmpty("users")).isFalse();
+
+        cache.record("orders", true);
+        assertThat(cache.isKnownNonEmpty("orders")).isFalse();
+    }
+
+    @Test
+    void entriesExpireAndCanBeInvalidated() {
+        CollectionEmptinessCache expiring = cache(-1);
+        expiring.record("orders", false);
+        assertThat(expiring.isKnownNonEmpty("orders")).isFalse();
+
+        CollectionEmptinessCache cache = cache(60_000);
+        cache.record("orders", false);
+        cache.record("users", false);
+        cache.invalidate("orders");
+        assertThat(cache.isKnownNonEmpty("orders")).isFalse();
+        assertThat(cache.isKnownNonEmpty("users")).isTrue();
+        cache.clear();
+        assertThat(cache.isKnownNonEmpty("users")).isFalse();
+    }
+
+    private static CollectionEmptinessCache cache(long ttlMs) {
+        CollectionEmptinessCache cache = new CollectionEmptinessCache();
+        ReflectionTestUtils.setField(cache, "emptinessTtlMs", ttlMs);
+        return cache;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.repository.DatasetRepository;
+import com.dynamicui.repository.UIComponentRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DatasetCacheTest {
+
+    private final DatasetRepository datasetRepository = mock(DatasetRepository.class);
+    private final DatasetCache cache = new DatasetCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "datasetRepository", datasetRepository);
+        ReflectionTestUtils.setField(cache, "componentRepository", mock(UIComponentRepository.class));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "changeStreamEnabled", true);
+        ReflectionTestUtils.setField(cache, "maxStreamFailures", 3);
+    }
+
+    @Test
+    void loadedDatasetIsCached() {
+        when(datasetRepository.findById("d1")).thenReturn(Optional.of(dataset("d1", "Sales")));
+
+        cache.findById("d1");
+        assertThat(cache.findById("d1")).isPresent();
+        assertThat(cache.findByName("SALES")).isPresent();
+
+        verify(datasetRepository, times(1)).findById("d1");
+    }
+
+    @Test
+    void loadThatRacedWithAWriteIsNotCached() {
+        // The write lands (and invalidates) after the load read the old document
+        when(datasetRepository.findById("d1")).thenAnswer(invocation -> {
+            cache.invalidate("d1");
+            return Optional.of(dataset("d1", "stale"));
+        });
+
+        assertThat(cache.findById("d1")).map(Dataset::getName).contains("stale");
+        cache.findById("d1");
+
+        verify(datasetRepository, times(2)).findById("d1");
+    }
+
+    @Test
+    void batchLoadThatRacedWithAWriteIsNotCached() {
+        when(datasetRepository.findAllById(List.of("d1"))).thenAnswer(invocation -> {
+            cache.invalidateAll();
+            return List.of(dataset("d1", "stale"));
+        });
+
+        assertThat(cache.findAllById(List.of("d1"))).containsKey("d1");
+        cache.findAllById(List.of("d1"));
+
+        verify(datasetRepository, times(2)).findAllById(List.of("d1"));
+    }
+
+    @Test
+    void nullLookupsFindNothing() {
+        assertThat(cache.findByName(null)).isEmpty();
+        assertThat(cache.findById(null)).isEmpty();
+        verifyNoInteractions(datasetRepository);
+    }
+
+    @Test
+    void streamFailureClearsTheCache() {
+        when(datasetRepository.findById("d1")).thenReturn(Optional.of(dataset("d1", "Sales")));
+        cache.findById("d1");
+
+        cache.streamFailed(commandError(13, "Unauthorized"));
+
+        cache.findById("d1");
+        verify(datasetRepository, times(2)).findById("d1");
+        assertThat(cache.isChangeStreamEnabled()).isTrue();
+    }
+
+    @Test
+    void repeatedStreamFailuresFallBackToPolling() {
+        cache.streamFailed(commandError(13, "Unauthorized"));
+        cache.streamFailed(new IllegalStateException("cursor closed"));
+        assertThat(cache.isChangeStreamEnabled()).isTrue();
+
+        cache.streamFailed(commandError(13, "Unauthorized"));
+        assertThat(cache.isChangeStreamEnabled()).isFalse();
+    }
+
+    @Test
+    void standaloneServerFallsBackToPollingAtOnce() {
+        cache.streamFailed(commandError(40573, "The $changeStream stage is only supported on replica sets"));
+
+        assertThat(cache.isChangeStreamEnabled()).isFalse();
+    }
+
+    private static MongoCommandException commandError(int code, String message) {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+            .append("code", new BsonInt32(code))
+            .append("errmsg", new BsonString(message));
+        return new MongoCommandException(response, new ServerAddress());
+    }
+
+    private static Dataset dataset(String id, String name) {
+        Dataset dataset = new Dataset(name, null, null);
+        dataset.setId(id);
+        return dataset;
+    }
+}
@@ -0,0 +1,105 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBRef;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class DatasetReferenceResolverTest {
+
+    private final DatasetCache datasetCache = mock(DatasetCache.class);
+    private final DatasetReferenceResolver resolver = new DatasetReferenceResolver();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(resolver, "datasetCache", datasetCache);
+    }
+
+    @Test
+    void resolvesABatchWithOneLookupPerDistinctDataset() {
+        Dataset sales = dataset("d1");
+        when(datasetCache.findAllById(anyCollection())).thenReturn(Map.of("d1", sales));
+        UIComponent first = component(proxy("d1"));
+        UIComponent second = component(proxy("d1"));
+        UIComponent dangling = component(proxy("d2"));
+
+        resolver.resolve(List.of(first, second, dangling, "not a component"));
+
+        verify(datasetCache).findAllById(argThat(ids -> List.copyOf(ids).equals(List.of("d1", "d2"))));
+        assertThat(first.getDataset()).isSameAs(sales);
+        assertThat(second.getDataset()).isSameAs(sales);
+        // A dangling reference resolves to null, as it did with eager loading
+        assertThat(dangling.getDataset()).isNull();
+    }
+
+    @Test
+    void leavesLoadedDatasetsAlone() {
+        Dataset loaded = dataset("d1");
+        UIComponent component = component(loaded);
+
+        resolver.resolve(List.of(component, component(null)));
+
+        verify(datasetCache, never()).findAllById(any());
+        assertThat(component.getDataset()).isSameAs(loaded);
+    }
+
+    @Test
+    void datasetIdIsReadFromTheReferenceWithoutLoadingIt() {
+        Dataset proxy = proxy("d7");
+
+        assertThat(DatasetReferenceResolver.datasetId(component(proxy))).isEqualTo("d7");
+        verify((LazyLoadingProxy) proxy, never()).getTarget();
+    }
+
+    @Test
+    void guardRejectsAnUnresolvedProxy() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .registerModule(DatasetReferenceResolver.serializationGuard());
+
+        assertThatThrownBy(() -> objectMapper.writeValueAsString(component(proxy("d1"))))
+            .isInstanceOf(JsonMappingException.class)
+            .hasMessageContaining("Unresolved lazy reference");
+
+        when(datasetCache.findAllById(anyCollection())).thenReturn(Map.of("d1", dataset("d1")));
+        UIComponent resolved = component(proxy("d1"));
+        resolver.resolve(List.of(resolved));
+        assertThat(objectMapper.writeValueAsString(resolved)).contains("\"d1\"");
+    }
+
+    private static Dataset proxy(String id) {
+        Dataset proxy = mock(Dataset.class, withSettings().extraInterfaces(LazyLoadingProxy.class));
+        when(((LazyLoadingProxy) proxy).toDBRef()).thenReturn(new DBRef("datasets", id));
+        return proxy;
+    }
+
+    private static Dataset dataset(String id) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        return dataset;
+    }
+
+    private static UIComponent component(Dataset dataset) {
+        UIComponent component = new UIComponent();
+        component.setDataset(dataset);
+        return component;
+    }
+}
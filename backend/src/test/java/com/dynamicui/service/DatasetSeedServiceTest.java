@@ -0,0 +1,144 @@
+package com.dynamicui.service;
+
+import com.dynamicui.backend.model.Page;
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.UIComponent;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatasetSeedServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+    private final DataGenerationService dataGenerationService = new DataGenerationService();
+    private final DatasetSeedService service = new DatasetSeedService();
+    private final Dataset dataset = new Dataset("Orders", null, Map.of("id", "number", "status", "string"));
+
+    @BeforeEach
+    void setUp() {
+        MongoClient mongoClient = mock(MongoClient.class);
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(mongoClient.getDatabase(anyString())).thenReturn(database);
+        when(database.getCollection(anyString())).thenReturn(collection);
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(Page.class, Dataset.class, UIComponent.class));
+        mappingContext.afterPropertiesSet();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        ReflectionTestUtils.setField(service, "mongoClient", mongoClient);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "dataGenerationService", dataGenerationService);
+        ReflectionTestUtils.setField(service, "mongoQueryService", mock(MongoQueryService.class));
+        ReflectionTestUtils.setField(service, "maxRows", 1_000_000L);
+        ReflectionTestUtils.setField(service, "defaultBatchSize", 10);
+        ReflectionTestUtils.setField(service, "defaultWriters", 4);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 20);
+        ReflectionTestUtils.setField(service, "maxWriters", 8);
+        ReflectionTestUtils.setField(service, "maxFinishedJobs", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stopJobs();
+    }
+
+    @Test
+    void refusesTheApplicationsOwnCollections() {
+        assertThat(service.protectedCollections()).containsExactlyInAnyOrder("pages", "datasets", "ui_components");
+        for (String target : List.of("pages", "datasets", "ui_components", "system.users")) {
+            assertThatThrownBy(() -> service.seed(dataset, target, 10, 1L, null, null, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be seeded");
+            assertThatThrownBy(() -> service.submit(dataset, target, 10, 1L, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void firstFailedWriterStopsTheOthers() {
+        CountDownLatch othersStarted = new CountDownLatch(3);
+        AtomicInteger calls = new AtomicInteger();
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 3) {
+                othersStarted.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("duplicate key");
+            }
+            othersStarted.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new MongoInterruptedException("interrupted", e);
+            }
+            return null;
+        });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.seed(dataset, "orders", 40, 1L, 10, 4, false))
+            .hasMessageContaining("duplicate key");
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(10);
+    }
+
+    @Test
+    void requestedBatchSizeAndWritersAreCapped() {
+        Map<String, Object> report = service.seed(dataset, "orders", 100, 1L, 100_000_000, 100_000, false);
+
+        assertThat(report)
+            .containsEntry("rows", 100L)
+            .containsEntry("batchSize", 20)
+            .containsEntry("writers", 8);
+    }
+
+    @Test
+    void smallSeedUsesNoMoreWritersOrBatchRoomThanRows() {
+        Map<String, Object> report = service.seed(dataset, "orders", 3, 1L, null, null, false);
+
+        assertThat(report)
+            .containsEntry("rows", 3L)
+            .containsEntry("batchSize", 3)
+            .containsEntry("writers", 3);
+    }
+
+    @Test
+    void submitRunsTheSeedInTheBackground() throws InterruptedException {
+        DatasetSeedService.SeedJob job = service.submit(dataset, null, 25, 1L, 10, 2);
+
+        for (int i = 0; i < 100 && !"SUCCEEDED".equals(job.getStatus()); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(job.getStatus()).isEqualTo("SUCCEEDED");
+        assertThat(job.getCollection()).isEqualTo("orders");
+        assertThat(job.getReport()).containsEntry("rows", 25L);
+        assertThat(service.getJob(job.getId())).isSameAs(job);
+    }
+}
@@ -0,0 +1,58 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexAdvisorServiceTest {
+
+    @Test
+    void readsStringSortDirections() {
+        Map<String, Object> sort = new LinkedHashMap<>();
+        sort.put("createdAt", "desc");
+        sort.put("name", "ascending");
+        sort.put("score", "DESCENDING");
+        MongoQuery query = new MongoQuery("orders", Map.of("status", "open"));
+        query.setSort(sort);
+
+        IndexAdvisorService.QueryShape shape = IndexAdvisorService.QueryShape.of(query);
+
+        assertThat(shape.sort()).containsExactly(Map.entry("createdAt", -1), Map.entry("name", 1),
+            Map.entry("score", -1));
+        assertThat(shape.recommendedIndex()).isEqualTo(Document.parse(
+            "{status: 1, createdAt: -1, name: 1, score: -1}"));
+    }
+
+    @Test
+    void readsStringDirectionsInAPipelineSort() {
+        MongoQuery query = new MongoQuery("orders", null);
+        query.setPipeline(List.of(
+            Map.of("$match", Map.of("amount", Map.of("$gt", 5))),
+            Map.of("$sort", Map.of("region", "desc"))));
+
+        assertThat(IndexAdvisorService.QueryShape.of(query).recommendedIndex())
+            .isEqualTo(Document.parse("{region: -1, amount: 1}"));
+    }
+
+    @Test
+    void reportDoesNotExplainAndExplainsAreCapped() {
+        IndexAdvisorService advisor = new IndexAdvisorService();
+        ReflectionTestUtils.setField(advisor, "enabled", true);
+        ReflectionTestUtils.setField(advisor, "maxShapes", 500);
+        ReflectionTestUtils.setField(advisor, "maxExplainsPerRequest", 2);
+        advisor.record(new MongoQuery("orders", Map.of("status", "open")), 1_000_000);
+
+        Map<String, Object> report = advisor.getReport();
+
+        assertThat(report).containsEntry("shapes", 1).containsEntry("unexplainedShapes", 1L);
+        // Without a MongoClient nothing can be explained, whatever the requested limit
+        assertThat(advisor.explainStale(1_000)).isZero();
+    }
+}
@@ -0,0 +1,93 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.support.MongoContainerSupport;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pages through a collection whose sort field is sometimes null, missing or of another type
+ * and checks that the pages add up to exactly the rows of one sorted find.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class KeysetPaginationMongoTest extends MongoContainerSupport {
+
+    private static final String COLLECTION = "keyset_mixed";
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoQueryService mongoQueryService;
+
+    private MongoCollection<Document> collection;
+
+    @BeforeEach
+    void setUp() {
+        collection = mongoClient.getDatabase(DATABASE).getCollection(COLLECTION);
+        collection.drop();
+        mongoQueryService.invalidateCollection(COLLECTION);
+        insertRows(collection, 40, i -> {
+            Document row = new Document("_id", i).append("blob", "x".repeat(10));
+            switch (i % 5) {
+                case 0 -> row.append("score", null);
+                case 1 -> { }
+                case 2 -> row.append("score", i % 3);
+                case 3 -> row.append("score", "s" + (i % 4));
+                default -> row.append("score", new Date(1_700_000_000_000L + i % 2));
+            }
+            return row;
+        });
+    }
+
+    @Test
+    void ascendingPagesMatchOneSortedFind() {
+        assertPagesMatch(1, null);
+    }
+
+    @Test
+    void descendingPagesMatchOneSortedFind() {
+        assertPagesMatch(-1, null);
+    }
+
+    @Test
+    void exclusionOfTheSortFieldDoesNotBreakPaging() {
+        assertPagesMatch(1, Map.of("score", 0, "blob", 0));
+    }
+
+    private void assertPagesMatch(int direction, Map<String, Object> projection) {
+        List<Object> expected = new ArrayList<>();
+        collection.find().sort(new Document("score", direction).append("_id", direction))
+            .forEach(row -> expected.add(row.get("_id")));
+
+        List<Object> paged = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            MongoQuery query = new MongoQuery(COLLECTION, null);
+            query.setSort(Map.of("score", direction));
+            query.setLimit(3);
+            query.setKeyset(true);
+            query.setContinuationToken(token);
+            query.setProjection(projection);
+            KeysetPagination.Page page = mongoQueryService.executeKeysetPage(query);
+            page.data().forEach(row -> paged.add(row.get("_id")));
+            token = page.continuationToken();
+            assertThat(++pages).isLessThan(100);
+        } while (token != null);
+
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+}
@@ -0,0 +1,204 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPaginationTest {
+
+    @Test
+    void sortIsExtendedWithIdInTheLastDirection() {
+        assertThat(KeysetPagination.sort(query(Map.of("score", "desc"))))
+            .isEqualTo(new Document("score", -1).append("_id", -1));
+        assertThat(KeysetPagination.sort(query(null))).isEqualTo(new Document("_id", 1));
+    }
+
+    @Test
+    void tokenRoundTripPreservesBsonTypes() {
+        MongoQuery query = query(sortOf("createdAt", 1, "count", 1));
+        Document sort = KeysetPagination.sort(query);
+        ObjectId id = new ObjectId();
+        Date createdAt = new Date(1_700_000_000_000L);
+        String token = token(query, new Document("_id", id).append("createdAt", createdAt).append("count", 5L));
+
+        List<Document> branches = branches(KeysetPagination.afterFilter(sort, token, KeysetPagination.scope(query)));
+
+        assertThat(branches).hasSize(3);
+        assertThat(branches.get(0).get("$or", List.class).get(0))
+            .isEqualTo(new Document("createdAt", new Document("$gt", createdAt)));
+        assertThat(branches.get(1).get("createdAt")).isEqualTo(createdAt);
+        assertThat(branches.get(1).get("$or", List.class).get(0))
+            .isEqualTo(new Document("count", new Document("$gt", 5L)));
+        assertThat(branches.get(2)).containsEntry("createdAt", createdAt).containsEntry("count", 5L);
+        assertThat(branches.get(2).get("$or", List.class).get(0))
+            .isEqualTo(new Document("_id", new Document("$gt", id)));
+    }
+
+    @Test
+    void ascendingAfterNullMeansAnyNonNullValue() {
+        MongoQuery query = query(sortOf("score", 1));
+        Document after = first(query, new Document("_id", 7));
+
+        assertThat(after.toJson()).doesNotContain("\"$gt\": null");
+        assertThat(after.get("score", Document.class).getList("$type", String.class))
+            .contains("double", "string", "date")
+            .doesNotContain("null", "minKey");
+    }
+
+    @Test
+    void descendingAfterAValueIncludesNullsAndLowerTypes() {
+        MongoQuery query = query(sortOf("score", -1));
+        Document after = first(query, new Document("_id", 7).append("score", "b"));
+
+        List<Object> options = after.getList("$or", Object.class);
+        assertThat(options).contains(
+            new Document("score", new Document("$lt", "b")),
+            new Document("score", null));
+        Document types = (Document) options.get(2);
+        assertThat(types.get("score", Document.class).getList("$type", String.class))
+            .containsExactly("minKey", "double", "int", "long", "decimal");
+    }
+
+    @Test
+    void descendingAfterNullOnlyReachesMinKey() {
+        MongoQuery query = query(sortOf("score", -1));
+        Document after = first(query, new Document("_id", 7).append("score", null));
+
+        assertThat(after).isEqualTo(new Document("score", new Document("$type", List.of("minKey"))));
+    }
+
+    @Test
+    void missingSortFieldIsEncodedAsNull() {
+        MongoQuery query = query(sortOf("profile.age", 1));
+        String token = token(query, new Document("_id", 1).append("profile", new Document()));
+        List<Document> branches = branches(
+            KeysetPagination.afterFilter(KeysetPagination.sort(query), token, KeysetPagination.scope(query)));
+
+        // Ties on the null value continue by _id
+        assertThat(branches.get(1)).containsEntry("profile.age", null);
+    }
+
+    @Test
+    void rejectsTokensFromAnotherQuery() {
+        MongoQuery query = query(sortOf("score", 1));
+        String token = token(query, new Document("_id", 1).append("score", 3));
+        Document sort = KeysetPagination.sort(query);
+
+        MongoQuery otherFilter = query(sortOf("score", 1));
+        otherFilter.setFilter(Map.of("status", "open"));
+        MongoQuery otherCollection = query(sortOf("score", 1));
+        otherCollection.setCollection("users");
+        MongoQuery otherSort = query(sortOf("name", 1));
+
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(sort, token, KeysetPagination.scope(otherFilter)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(sort, token, KeysetPagination.scope(otherCollection)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(KeysetPagination.sort(otherSort), token,
+            KeysetPagination.scope(otherSort)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(sort, "not-a-token", KeysetPagination.scope(query)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTokensFromTheReversedSort() {
+        MongoQuery ascending = query(sortOf("score", 1));
+        String token = token(ascending, new Document("_id", 1).append("score", 3));
+        MongoQuery descending = query(sortOf("score", "desc"));
+        MongoQuery idDescending = query(sortOf("score", 1, "_id", -1));
+
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(KeysetPagination.sort(descending), token,
+            KeysetPagination.scope(descending)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Continuation token does not match the query sort");
+        assertThatThrownBy(() -> KeysetPagination.afterFilter(KeysetPagination.sort(idDescending), token,
+            KeysetPagination.scope(idDescending)))
+            .isInstanceOf(IllegalArgumentException.class);
+        // The same directions written differently still match
+        MongoQuery spelledOut = query(sortOf("score", "ascending"));
+        assertThat(KeysetPagination.afterFilter(KeysetPagination.sort(spelledOut), token,
+            KeysetPagination.scope(spelledOut))).isNotNull();
+    }
+
+    @Test
+    void scopeIgnoresFilterKeyOrder() {
+        MongoQuery first = query(null);
+        first.setFilter(sortOf("a", 1, "b", 2));
+        MongoQuery second = query(null);
+        second.setFilter(sortOf("b", 2, "a", 1));
+        assertThat(KeysetPagination.scope(first)).isEqualTo(KeysetPagination.scope(second));
+    }
+
+    @Test
+    void projectionKeepsSortFields() {
+        Document sort = new Document("profile.age", 1).append("name", -1).append("_id", -1);
+
+        assertThat(KeysetPagination.projection(Map.of("email", 1, "_id", 0), sort))
+            .containsOnlyKeys("email", "profile.age", "name");
+        // Excluding a sort field, its parent or a child of it would hide the token's values
+        assertThat(KeysetPagination.projection(sortOf("profile", 0, "name.first", 0, "blob", 0), sort))
+            .containsOnlyKeys("blob");
+        // A parent already included covers the field; a child included would collide with it
+        assertThat(KeysetPagination.projection(sortOf("profile", 1, "name.first", 1), sort))
+            .containsOnlyKeys("profile", "name");
+    }
+
+    @Test
+    void pageHasATokenOnlyWhenTheProbeRowWasFound() {
+        MongoQuery query = query(sortOf("score", 1));
+        Document sort = KeysetPagination.sort(query);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new Document("_id", i).append("score", i));
+        }
+
+        KeysetPagination.Page full = KeysetPagination.page(rows, 2, sort, KeysetPagination.scope(query));
+        assertThat(full.data()).hasSize(2);
+        assertThat(full.continuationToken()).isNotNull();
+
+        KeysetPagination.Page last = KeysetPagination.page(rows, 3, sort, KeysetPagination.scope(query));
+        assertThat(last.data()).hasSize(3);
+        assertThat(last.continuationToken()).isNull();
+    }
+
+    private static Document first(MongoQuery query, Document lastRow) {
+        String token = token(query, lastRow);
+        return branches(KeysetPagination.afterFilter(KeysetPagination.sort(query), token, KeysetPagination.scope(query)))
+            .get(0);
+    }
+
+    private static String token(MongoQuery query, Document lastRow) {
+        return KeysetPagination.encode(KeysetPagination.sort(query), lastRow, KeysetPagination.scope(query));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> branches(Document after) {
+        return (List<Document>) after.get("$or");
+    }
+
+    private static MongoQuery query(Map<String, Object> sort) {
+        MongoQuery query = new MongoQuery("orders", null);
+        query.setSort(sort);
+        query.setKeyset(true);
+        return query;
+    }
+
+    private static Map<String, Object> sortOf(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,67 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.UIComponent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ListingServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ListingService service = new ListingService();
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void requestedFieldsResolveToMappedPropertiesInAnyCase() {
+        ListingService.Selection selection = service.selection(UIComponent.class,
+            new LinkedHashSet<>(List.of("xposition", "NAME", "unknown")));
+
+        assertThat(selection.storedFields()).containsExactly("xPosition", "name", "unknown");
+    }
+
+    @Test
+    void selectedRowsMatchTheFullSerialization() {
+        UIComponent component = new UIComponent();
+        component.setId("c1");
+        component.setName("chart");
+        component.setType("bar");
+        component.setXPosition(3);
+
+        Map<String, Object> row = service.selection(UIComponent.class, Set.of("xPosition", "name")).select(component);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> full = objectMapper.convertValue(component, Map.class);
+        assertThat(row).containsOnlyKeys("id", "name", "xposition");
+        row.forEach((property, value) -> assertThat(value).isEqualTo(full.get(property)));
+    }
+
+    @Test
+    void noFieldsMeansNoSelection() {
+        assertThat(service.selection(UIComponent.class, null)).isNull();
+        assertThat(service.selection(UIComponent.class, Set.of())).isNull();
+    }
+}
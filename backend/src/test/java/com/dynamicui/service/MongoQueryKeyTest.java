@@ -0,0 +1,90 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoQueryKeyTest {
+
+    @Test
+    void ignoresFilterFieldOrder() {
+        assertThat(key(ordered("a", 1, "b", 2))).isEqualTo(key(ordered("b", 2, "a", 1)));
+    }
+
+    @Test
+    void ignoresOperatorOrderWithinACondition() {
+        Map<String, Object> range = ordered("$gte", 1, "$lt", 5);
+        Map<String, Object> reversed = ordered("$lt", 5, "$gte", 1);
+        assertThat(key(Map.of("a", range))).isEqualTo(key(Map.of("a", reversed)));
+    }
+
+    @Test
+    void keepsFieldOrderOfEmbeddedDocuments() {
+        // MongoDB matches embedded documents field by field in order
+        assertThat(key(Map.of("a", ordered("x", 1, "y", 2))))
+            .isNotEqualTo(key(Map.of("a", ordered("y", 2, "x", 1))));
+        assertThat(key(Map.of("a", Map.of("$in", List.of(ordered("x", 1, "y", 2))))))
+            .isNotEqualTo(key(Map.of("a", Map.of("$in", List.of(ordered("y", 2, "x", 1))))));
+    }
+
+    @Test
+    void normalizesFiltersInsideLogicalOperatorsAndElemMatch() {
+        assertThat(key(Map.of("$or", List.of(ordered("a", 1, "b", 2)))))
+            .isEqualTo(key(Map.of("$or", List.of(ordered("b", 2, "a", 1)))));
+        assertThat(key(Map.of("items", Map.of("$elemMatch", ordered("qty", 1, "sku", "x")))))
+            .isEqualTo(key(Map.of("items", Map.of("$elemMatch", ordered("sku", "x", "qty", 1)))));
+    }
+
+    @Test
+    void treatsNumericTypesAsEqual() {
+        assertThat(key(Map.of("a", 5))).isEqualTo(key(Map.of("a", 5L)));
+        assertThat(key(Map.of("a", 5))).isEqualTo(key(Map.of("a", 5.0)));
+        assertThat(key(Map.of("a", 5))).isNotEqualTo(key(Map.of("a", "5")));
+    }
+
+    @Test
+    void keepsSortOrder() {
+        MongoQuery first = new MongoQuery("orders", null);
+        first.setSort(ordered("a", 1, "b", -1));
+        MongoQuery second = new MongoQuery("orders", null);
+        second.setSort(ordered("b", -1, "a", 1));
+        assertThat(MongoQueryKey.of(first)).isNotEqualTo(MongoQueryKey.of(second));
+    }
+
+    @Test
+    void distinguishesCollectionsLimitsAndProjections() {
+        MongoQuery base = new MongoQuery("orders", Map.of("a", 1));
+        MongoQuery otherCollection = new MongoQuery("users", Map.of("a", 1));
+        MongoQuery limited = new MongoQuery("orders", Map.of("a", 1));
+        limited.setLimit(10);
+        MongoQuery projected = new MongoQuery("orders", Map.of("a", 1));
+        projected.setProjection(Map.of("a", 1));
+
+        assertThat(List.of(MongoQueryKey.of(otherCollection), MongoQueryKey.of(limited), MongoQueryKey.of(projected)))
+            .doesNotContain(MongoQueryKey.of(base))
+            .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void acceptsBsonDocuments() {
+        assertThat(key(new Document("a", 1).append("b", 2))).isEqualTo(key(ordered("b", 2, "a", 1)));
+    }
+
+    private static String key(Map<String, Object> filter) {
+        return MongoQueryKey.of(new MongoQuery("orders", filter));
+    }
+
+    private static Map<String, Object> ordered(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.Dataset;
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.model.UIComponent;
+import com.dynamicui.repository.DatasetRepository;
+import com.dynamicui.repository.UIComponentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProjectionResolverTest {
+
+    private final DatasetRepository datasetRepository = mock(DatasetRepository.class);
+    private final UIComponentRepository componentRepository = mock(UIComponentRepository.class);
+    private final DatasetCache datasetCache = new DatasetCache();
+    private final ProjectionResolver resolver = new ProjectionResolver();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(datasetCache, "datasetRepository", datasetRepository);
+        ReflectionTestUtils.setField(datasetCache, "componentRepository", componentRepository);
+        ReflectionTestUtils.setField(datasetCache, "enabled", true);
+        ReflectionTestUtils.setField(resolver, "datasetCache", datasetCache);
+        ReflectionTestUtils.setField(resolver, "enabled", true);
+
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "string");
+        columns.put("email", "string");
+        Dataset dataset = new Dataset("users", null, columns);
+        dataset.setId("ds1");
+        when(datasetRepository.findById("ds1")).thenReturn(Optional.of(dataset));
+        UIComponent component = new UIComponent();
+        component.setId("c1");
+        component.setDatasetId("ds1");
+        when(componentRepository.findById("c1")).thenReturn(Optional.of(component));
+    }
+
+    @Test
+    void returnsAProjectedCopyAndLeavesTheQueryAlone() {
+        MongoQuery query = new MongoQuery("users", Map.of("active", true));
+        query.setDatasetId("ds1");
+
+        MongoQuery resolved = resolver.resolve(query);
+
+        assertThat(resolved).isNotSameAs(query);
+        assertThat(resolved.getProjection()).containsExactly(
+            Map.entry("name", 1), Map.entry("email", 1), Map.entry("_id", 0));
+        assertThat(resolved.getFilter()).isEqualTo(query.getFilter());
+        assertThat(query.getProjection()).isNull();
+    }
+
+    @Test
+    void returnsTheSameQueryWhenNothingApplies() {
+        MongoQuery explicit = new MongoQuery("users", null);
+        explicit.setDatasetId("ds1");
+        explicit.setProjection(Map.of("name", 1));
+        MongoQuery unbound = new MongoQuery("users", null);
+
+        assertThat(resolver.resolve(explicit)).isSameAs(explicit);
+        assertThat(resolver.resolve(unbound)).isSameAs(unbound);
+        assertThat(resolver.bindingKey(explicit)).isEmpty();
+        assertThat(resolver.bindingKey(unbound)).isEmpty();
+    }
+
+    @Test
+    void looksUpAComponentsDatasetOnce() {
+        MongoQuery query = new MongoQuery("users", null);
+        query.setComponentId("c1");
+
+        resolver.resolve(query);
+        MongoQuery resolved = resolver.resolve(query);
+
+        assertThat(resolved.getProjection()).containsKeys("name", "email");
+        verify(componentRepository, times(1)).findById("c1");
+        verify(datasetRepository, times(1)).findById("ds1");
+    }
+
+    @Test
+    void bindingKeyChangesWhenTheBindingIsInvalidated() {
+        MongoQuery query = new MongoQuery("users", null);
+        query.setComponentId("c1");
+        String before = resolver.bindingKey(query);
+
+        datasetCache.invalidateComponent("c1");
+
+        assertThat(resolver.bindingKey(query)).isNotEqualTo(before).contains(";m=c1");
+    }
+}
@@ -0,0 +1,163 @@
+package com.dynamicui.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryCoalescerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private QueryCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = coalescer(true, 5_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        Object result = new Object();
+
+        Future<Object> leader = executor.submit(() -> coalescer.execute("k", 10_000, () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return result;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Object>> followers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            followers.add(executor.submit(() -> coalescer.execute("k", 10_000, () -> {
+                executions.incrementAndGet();
+                return new Object();
+            })));
+        }
+        awaitCoalesced(10);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        for (Future<Object> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void followersSeeTheLeadersFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(() -> coalescer.execute("k", 10_000, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Object> follower = executor.submit(() -> coalescer.execute("k", 10_000, Object::new));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void slowLeaderLetsAFollowerBreakAwayWithinTheConcurrencyLimit() throws Exception {
+        coalescer = coalescer(true, 50, 2);
+        CountDownLatch release = blockLeader("k");
+
+        Object own = new Object();
+        assertThat(coalescer.execute("k", 10_000, () -> own)).isSameAs(own);
+        assertThat(coalescer.stats()).containsEntry("breakaways", 1L);
+        release.countDown();
+    }
+
+    @Test
+    void followerWithoutAPermitGivesUpAtItsDeadline() throws Exception {
+        coalescer = coalescer(true, 50, 1);
+        CountDownLatch release = blockLeader("k");
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> coalescer.execute("k", 300, Object::new))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Timed out after 300 ms");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(250L, 3_000L);
+        assertThat(coalescer.stats()).containsEntry("timeouts", 1L);
+        release.countDown();
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        AtomicInteger executions = new AtomicInteger();
+        coalescer.execute("a", 1_000, executions::incrementAndGet);
+        coalescer.execute("b", 1_000, executions::incrementAndGet);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void disabledRunsEveryCall() {
+        coalescer = coalescer(false, 5_000, 2);
+        AtomicInteger executions = new AtomicInteger();
+        coalescer.execute("k", 1_000, executions::incrementAndGet);
+        coalescer.execute("k", 1_000, executions::incrementAndGet);
+        assertThat(executions).hasValue(2);
+    }
+
+    private CountDownLatch blockLeader(String key) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> coalescer.execute(key, 60_000, () -> {
+            started.countDown();
+            await(release);
+            return new Object();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((long) coalescer.stats().get("coalesced") < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Give the followers time to start waiting on the shared result
+        Thread.sleep(50);
+    }
+
+    private static QueryCoalescer coalescer(boolean enabled, long maxWaitMs, int maxConcurrentPerKey) {
+        QueryCoalescer coalescer = new QueryCoalescer();
+        ReflectionTestUtils.setField(coalescer, "enabled", enabled);
+        ReflectionTestUtils.setField(coalescer, "maxWaitMs", maxWaitMs);
+        ReflectionTestUtils.setField(coalescer, "maxConcurrentPerKey", maxConcurrentPerKey);
+        return coalescer;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dynamicui.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryResultCacheTest {
+
+    private QueryResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new QueryResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "maxWeightBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "defaultTtlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "collectionTtlSpec", "");
+        cache.parseCollectionTtls();
+    }
+
+    @Test
+    void returnsStoredResults() {
+        cache.put("k", "orders", cache.generation("orders"), rows());
+        assertThat(cache.get("k")).hasSize(1);
+        assertThat(cache.get("missing")).isNull();
+    }
+
+    @Test
+    void sharedRowsAreReadOnlyAllTheWayDown() {
+        List<Map<String, Object>> cached = cache.put("k", "orders", cache.generation("orders"), rows());
+        Map<String, Object> row = cache.get("k").get(0);
+
+        assertThat(cached.get(0)).isSameAs(row).isInstanceOf(Document.class);
+        assertThatThrownBy(() -> row.put("status", "changed")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> row.entrySet().clear()).isInstanceOf(UnsupportedOperationException.class);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> nested = (Map<String, Object>) row.get("customer");
+        assertThatThrownBy(() -> nested.put("name", "x")).isInstanceOf(UnsupportedOperationException.class);
+        @SuppressWarnings("unchecked")
+        List<Object> tags = (List<Object>) row.get("tags");
+        assertThatThrownBy(() -> tags.add("x")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> cache.get("k").clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void doesNotStoreResultsLoadedBeforeAnInvalidation() {
+        long generation = cache.generation("orders");
+        cache.invalidateCollection("orders");
+        cache.put("k", "orders", generation, rows());
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    void invalidatesOnlyTheWrittenCollection() {
+        cache.put("orders", "orders", cache.generation("orders"), rows());
+        cache.put("users", "users", cache.generation("users"), rows());
+        cache.invalidateCollection("orders");
+        assertThat(cache.get("orders")).isNull();
+        assertThat(cache.get("users")).isNotNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        cache.put("a", "orders", 0, rows());
+        cache.put("b", "orders", 0, rows());
+        cache.get("a");
+        cache.put("c", "orders", 0, rows());
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.stats()).containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void evictsBeyondMaxWeight() {
+        ReflectionTestUtils.setField(cache, "maxWeightBytes", QueryResultCache.estimateWeight(rows()) * 3 / 2);
+        cache.put("a", "orders", 0, rows());
+        cache.put("b", "orders", 0, rows());
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+    }
+
+    private static List<Map<String, Object>> rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(new Document("_id", 1)
+            .append("status", "open")
+            .append("customer", new Document("name", "Ada"))
+            .append("tags", new ArrayList<>(List.of("a", "b"))));
+        return rows;
+    }
+}
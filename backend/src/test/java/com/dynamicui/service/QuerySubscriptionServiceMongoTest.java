@@ -0,0 +1,151 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import com.dynamicui.support.MongoContainerSupport;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Live queries against a single-node replica set over real SSE connections: two feeds on one
+ * collection share its change stream, and each receives the changes as seen through its filter.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "mongo.subscriptions.heartbeat-ms=600000")
+class QuerySubscriptionServiceMongoTest extends MongoContainerSupport {
+
+    private static final String COLLECTION = "live_orders";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private QuerySubscriptionService querySubscriptionService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<Stream<String>> connections = new ArrayList<>();
+    private MongoCollection<Document> collection;
+
+    @BeforeEach
+    void setUp() {
+        collection = mongoClient.getDatabase(DATABASE).getCollection(COLLECTION);
+        collection.drop();
+        collection.insertOne(new Document("_id", 1).append("status", "open"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connections.forEach(Stream::close);
+    }
+
+    @Test
+    void feedsOnOneCollectionShareItsStreamAndFilterTheirChanges() throws Exception {
+        BlockingQueue<String[]> open = connect(querySubscriptionService.subscribe(query(Map.of("status", "open"))));
+        BlockingQueue<String[]> all = connect(querySubscriptionService.subscribe(query(null)));
+
+        assertThat(next(open)[0]).isEqualTo("snapshot");
+        assertThat(next(all)[0]).isEqualTo("snapshot");
+        assertThat(querySubscriptionService.getStats())
+            .containsEntry("feeds", 2)
+            .containsEntry("collections", 1)
+            .containsEntry("mode", "change-stream");
+
+        collection.insertOne(new Document("_id", 2).append("status", "closed"));
+        assertThat(next(all)).satisfies(event -> {
+            assertThat(event[0]).isEqualTo("upsert");
+            assertThat(event[1]).contains("\"id\":2", "closed");
+        });
+        // Outside the filter: whatever the client holds for it is removed
+        assertThat(next(open)).satisfies(event -> {
+            assertThat(event[0]).isEqualTo("delete");
+            assertThat(event[1]).contains("\"id\":2");
+        });
+
+        collection.updateOne(Filters.eq("_id", 1), Updates.set("status", "closed"));
+        assertThat(next(open)).satisfies(event -> {
+            assertThat(event[0]).isEqualTo("delete");
+            assertThat(event[1]).contains("\"id\":1");
+        });
+        assertThat(next(all)[0]).isEqualTo("upsert");
+
+        collection.deleteOne(Filters.eq("_id", 2));
+        assertThat(next(open)[0]).isEqualTo("delete");
+        assertThat(next(all)[0]).isEqualTo("delete");
+    }
+
+    @Test
+    void emptyCollectionHasAnEmptySnapshotRatherThanSampleRows() throws Exception {
+        collection.deleteMany(new Document());
+        BlockingQueue<String[]> all = connect(querySubscriptionService.subscribe(query(null)));
+
+        assertThat(next(all)).satisfies(event -> {
+            assertThat(event[0]).isEqualTo("snapshot");
+            assertThat(event[1]).contains("\"count\":0");
+        });
+
+        collection.insertOne(new Document("_id", 3).append("status", "open"));
+        assertThat(next(all)[0]).isEqualTo("upsert");
+    }
+
+    private static MongoQuery query(Map<String, Object> filter) {
+        return new MongoQuery(COLLECTION, filter);
+    }
+
+    // Reads "event:" and "data:" lines into [name, data] pairs on a background thread
+    private BlockingQueue<String[]> connect(String subscriptionId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/mongo/subscriptions/" + subscriptionId + "/events"))
+            .header("Accept", "text/event-stream")
+            .build();
+        Stream<String> lines = httpClient.send(request, HttpResponse.BodyHandlers.ofLines()).body();
+        connections.add(lines);
+        BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            String[] name = {null};
+            try {
+                lines.forEach(line -> {
+                    if (line.startsWith("event:")) {
+                        name[0] = line.substring("event:".length());
+                    } else if (line.startsWith("data:") && name[0] != null) {
+                        events.add(new String[] {name[0], line.substring("data:".length())});
+                        name[0] = null;
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Closed by tearDown
+            }
+        });
+        return events;
+    }
+
+    private static String[] next(BlockingQueue<String[]> events) throws InterruptedException {
+        String[] event = events.poll(10, TimeUnit.SECONDS);
+        assertThat(event).as("event within 10s").isNotNull();
+        return event;
+    }
+}
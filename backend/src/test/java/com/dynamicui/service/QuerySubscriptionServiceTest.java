@@ -0,0 +1,191 @@
+package com.dynamicui.service;
+
+import com.dynamicui.model.MongoQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuerySubscriptionServiceTest {
+
+    @Test
+    void diffSendsDeletesThenChangedRowsInResultOrder() {
+        List<Map<String, Object>> before = List.of(row(1, "a"), row(2, "b"), row(3, "c"));
+        List<Map<String, Object>> after = List.of(row(4, "d"), row(2, "b"), row(1, "A"));
+
+        assertThat(QuerySubscriptionService.diff(before, after)).containsExactly(
+            new QuerySubscriptionService.Delta(3, null),
+            new QuerySubscriptionService.Delta(4, row(4, "d")),
+            new QuerySubscriptionService.Delta(1, row(1, "A")));
+    }
+
+    @Test
+    void diffOfUnchangedRowsIsEmpty() {
+        List<Map<String, Object>> rows = List.of(row(1, "a"), row(2, "b"));
+
+        assertThat(QuerySubscriptionService.diff(rows, List.of(row(1, "a"), row(2, "b")))).isEmpty();
+    }
+
+    @Test
+    void rowsThatCannotBeDiffedNeedASnapshot() {
+        List<Map<String, Object>> rows = List.of(row(1, "a"));
+
+        assertThat(QuerySubscriptionService.diff(null, rows)).isNull();
+        assertThat(QuerySubscriptionService.diff(rows, List.of(Map.of("name", "no id")))).isNull();
+        assertThat(QuerySubscriptionService.diff(rows, List.of(row(1, "a"), row(1, "b")))).isNull();
+    }
+
+    @Test
+    void eventsDeliveredBeforeTheSnapshotFollowIt() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        QuerySubscriptionService.Listener listener = new QuerySubscriptionService.Listener(emitter, Runnable::run, 10);
+        Set<DataWithMediaType> snapshot = event("snapshot");
+        Set<DataWithMediaType> first = event("upsert");
+        Set<DataWithMediaType> second = event("delete");
+        Set<DataWithMediaType> third = event("upsert");
+
+        listener.deliver(first);
+        listener.deliver(second);
+        assertThat(emitter.sent).isEmpty();
+
+        listener.start(snapshot);
+        listener.deliver(third);
+
+        assertThat(emitter.sent).containsExactly(snapshot, first, second, third);
+    }
+
+    @Test
+    void listenerThatFallsBehindIsClosed() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        QuerySubscriptionService.Listener listener = new QuerySubscriptionService.Listener(emitter, Runnable::run, 2);
+
+        listener.deliver(event("upsert"));
+        listener.deliver(event("upsert"));
+        listener.deliver(event("upsert"));
+
+        assertThat(listener.isClosed()).isTrue();
+        assertThat(emitter.completed).isTrue();
+        listener.start(event("snapshot"));
+        assertThat(emitter.sent).isEmpty();
+    }
+
+    @Test
+    void slowClientDoesNotBlockDelivery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter() {
+            @Override
+            public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(items);
+            }
+        };
+        ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            QuerySubscriptionService.Listener listener = new QuerySubscriptionService.Listener(emitter, sender, 100);
+            listener.start(event("snapshot"));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++) {
+                listener.deliver(event("upsert"));
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (emitter.sent.size() < 51 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(emitter.sent).hasSize(51);
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    @Test
+    void failSendsOnlyTheErrorAndCompletes() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        QuerySubscriptionService.Listener listener = new QuerySubscriptionService.Listener(emitter, Runnable::run, 10);
+        Set<DataWithMediaType> error = event("error");
+
+        listener.deliver(event("upsert"));
+        listener.fail(error);
+
+        assertThat(emitter.sent).containsExactly(error);
+        assertThat(emitter.completed).isTrue();
+    }
+
+    @Test
+    void feedQueryKeepsTheResolvedProjectionButNotItsIdExclusion() {
+        ProjectionResolver projectionResolver = mock(ProjectionResolver.class);
+        QuerySubscriptionService service = new QuerySubscriptionService();
+        ReflectionTestUtils.setField(service, "projectionResolver", projectionResolver);
+        MongoQuery bound = new MongoQuery("orders", Map.of("status", "open"));
+        bound.setDatasetId("d1");
+        MongoQuery resolved = bound.copy();
+        resolved.setProjection(Map.of("status", 1, "total", 1, "_id", 0));
+        when(projectionResolver.resolve(bound)).thenReturn(resolved);
+
+        MongoQuery feedQuery = service.feedQuery(bound);
+
+        assertThat(feedQuery.getProjection()).isEqualTo(Map.of("status", 1, "total", 1));
+        assertThat(feedQuery.getFilter()).isEqualTo(Map.of("status", "open"));
+        assertThat(bound.getProjection()).isNull();
+    }
+
+    @Test
+    void feedQueryWithOnlyAnIdExclusionIsNotProjectedAgain() {
+        ProjectionResolver projectionResolver = mock(ProjectionResolver.class);
+        QuerySubscriptionService service = new QuerySubscriptionService();
+        ReflectionTestUtils.setField(service, "projectionResolver", projectionResolver);
+        MongoQuery query = new MongoQuery("orders", null);
+        query.setProjection(Map.of("_id", false));
+        when(projectionResolver.resolve(query)).thenReturn(query);
+
+        MongoQuery feedQuery = service.feedQuery(query);
+
+        assertThat(feedQuery.getProjection()).isNull();
+        assertThat(feedQuery.getAutoProject()).isFalse();
+        assertThat(query.getProjection()).isEqualTo(Map.of("_id", false));
+    }
+
+    private static Set<DataWithMediaType> event(String name) {
+        return SseEmitter.event().name(name).build();
+    }
+
+    private static Map<String, Object> row(Object id, String name) {
+        return Map.of("_id", id, "name", name);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Set<DataWithMediaType>> sent = new CopyOnWriteArrayList<>();
+        volatile boolean completed;
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            sent.add(items);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
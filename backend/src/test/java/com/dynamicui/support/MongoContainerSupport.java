@@ -0,0 +1,48 @@
+package com.dynamicui.support;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Base for tests that need a real MongoDB: a throwaway single-node replica set (so change
+ * streams work) that the application context connects to. Skipped when Docker is unavailable.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MongoContainerSupport {
+
+    protected static final String DATABASE = "dynamicui";
+
+    @Container
+    protected static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:7.0"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> MONGO.getReplicaSetUrl(DATABASE));
+    }
+
+    /**
+     * Fills a collection with {@code rows} generated documents using unordered batch inserts.
+     */
+    protected static void insertRows(MongoCollection<Document> collection, int rows, IntFunction<Document> row) {
+        int batchSize = 10_000;
+        List<Document> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < rows; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == batchSize || i == rows - 1) {
+                collection.insertMany(batch, new InsertManyOptions().ordered(false));
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+}